@@ -18,12 +18,20 @@
 
 <xsl:stylesheet exclude-result-prefixes="fo" version="2.0" xmlns:fo="http://www.w3.org/1999/XSL/Format"
 				xmlns:xsl="http://www.w3.org/1999/XSL/Transform">
+	<!-- The page layout, set by the export -->
+	<xsl:param name="margin-top" select="'2mm'"/>
+	<xsl:param name="margin-right" select="'2mm'"/>
+	<xsl:param name="margin-bottom" select="'2mm'"/>
+	<xsl:param name="margin-left" select="'2mm'"/>
+	<xsl:param name="spacing" select="'1mm'"/>
+	<xsl:param name="max-image-height" select="'scale-to-fit'"/>
+
 	<xsl:template match="barcode-list">
 		<fo:root xmlns:fo="http://www.w3.org/1999/XSL/Format">
 			<fo:layout-master-set>
-				<fo:simple-page-master margin-bottom="{{margin-bottom}}" margin-left="{{margin-left}}" margin-right="{{margin-right}}"
-									   margin-top="{{margin-top}}" master-name="simpleA4" page-height="29.7cm" page-width="21cm">
-					<fo:region-body column-count="2" column-gap="{{spacing}}"/>
+				<fo:simple-page-master margin-bottom="{$margin-bottom}" margin-left="{$margin-left}" margin-right="{$margin-right}"
+									   margin-top="{$margin-top}" master-name="simpleA4" page-height="29.7cm" page-width="21cm">
+					<fo:region-body column-count="2" column-gap="{$spacing}"/>
 				</fo:simple-page-master>
 			</fo:layout-master-set>
 			<fo:page-sequence master-reference="simpleA4">
@@ -36,17 +44,18 @@
 		</fo:root>
 	</xsl:template>
 	<xsl:template match="item">
-		<fo:block-container font-size="14pt" keep-together.within-column="always" space-before="{{spacing}}" text-align="center">
+		<!-- The id lets the export follow which items have been rendered -->
+		<fo:block-container font-size="14pt" id="item-{position()}" keep-together.within-column="always" space-before="{$spacing}" text-align="center">
 			<xsl:if test="image">
 				<fo:block>
-					<fo:external-graphic content-height="scale-to-fit" content-width="scale-to-fit" height="{{max-image-height}}" width="100%">
+					<fo:external-graphic content-height="scale-to-fit" content-width="scale-to-fit" height="{$max-image-height}" width="100%">
 						<xsl:attribute name="src">url('<xsl:value-of select="image"/>')
 						</xsl:attribute>
 					</fo:external-graphic>
 				</fo:block>
 			</xsl:if>
 			<fo:block>
-				<fo:external-graphic content-height="scale-to-fit" content-width="scale-to-fit" height="{{max-image-height}}" width="100%">
+				<fo:external-graphic content-height="scale-to-fit" content-width="scale-to-fit" height="{$max-image-height}" width="100%">
 					<xsl:attribute name="src">url('<xsl:value-of select="barcode"/>')
 					</xsl:attribute>
 				</fo:external-graphic>
@@ -33,11 +33,14 @@ import java.io.*;
 import java.lang.reflect.*;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.*;
 
 import jhi.humbug.gui.dialog.*;
 import jhi.humbug.gui.dialog.wizard.*;
 import jhi.humbug.gui.i18n.*;
 import jhi.humbug.gui.widget.*;
+import jhi.humbug.model.*;
+import jhi.humbug.render.*;
 import jhi.humbug.util.*;
 import jhi.humbug.util.Resources.*;
 import jhi.humbug.util.thread.*;
@@ -59,17 +62,25 @@ public class Humbug extends RestartableApplication
 	private static final String UPDATER_URL    = "https://ics.hutton.ac.uk/resources/humbug/installers/updates.xml";
 	private static final String TRACKER_URL    = "https://ics.hutton.ac.uk/resources/humbug/logs/humbug.pl";
 
+	/** The number of rows updated per event loop turn after a redraw */
+	private static final int REDRAW_SLICE_SIZE = 50;
+
 	/** Indicates whether the application is run form a jar or not */
-	public static  boolean           WITHIN_JAR;
+	public static  boolean            WITHIN_JAR;
 	/** The instance of {@link Humbug} */
-	private static Humbug            INSTANCE;
-	/** The {@link List} of {@link BarcodeRow} */
-	private        List<BarcodeRow>  rows;
-	/** The {@link ScrolledComposite} holding all the {@link BarcodeRow}s */
-	private        ScrolledComposite scrolledContainer;
-	/** The content {@link Composite} inside the {@link ScrolledComposite} */
-	private        Composite         content;
-	private        Composite         buttonBar;
+	private static Humbug             INSTANCE;
+	/** The {@link BarcodeDocument} containing all {@link BarcodeEntry} objects */
+	private        BarcodeDocument    document;
+	/** The {@link BarcodeList} showing the {@link BarcodeEntry} objects */
+	private        BarcodeList        list;
+	private        Composite          searchBar;
+	private        Text               search;
+	private        Button             filter;
+	/** The {@link BarcodeEntry} the search has last jumped to */
+	private        BarcodeEntry       searchMatch;
+	private        Composite          buttonBar;
+
+	private final Runnable redrawVisibleRows = this::redrawVisibleRows;
 
 	public static void main(String[] args)
 	{
@@ -100,6 +111,9 @@ public class Humbug extends RestartableApplication
 	protected void onPreStart()
 	{
 		checkForUpdate(true);
+
+		/* Get the PDF export ready while the user is busy with the list */
+		PdfExportEngine.INSTANCE.prepare();
 	}
 
 	@Override
@@ -110,24 +124,20 @@ public class Humbug extends RestartableApplication
 		shell.setText(RB.getString(RB.APPLICATION_TITLE));
 		shell.setImage(Images.LOGO);
 
-		if (rows == null)
-			rows = new ArrayList<>();
-		else
-			rows.forEach(BarcodeRow::dispose);
+		if (document == null)
+			document = new BarcodeDocument();
 
-		rows.clear();
+		document.clear();
 
-		WidgetUtils.dispose(scrolledContainer, content, buttonBar);
-		scrolledContainer = null;
-		content = null;
+		WidgetUtils.dispose(searchBar, list, buttonBar);
+		searchBar = null;
+		list = null;
 		buttonBar = null;
 
-		scrolledContainer = new ScrolledComposite(shell, SWT.V_SCROLL | SWT.BORDER);
-		scrolledContainer.setExpandHorizontal(true);
-		scrolledContainer.setExpandVertical(true);
+		createSearchBar();
 
-		content = new Composite(scrolledContainer, SWT.NONE);
-		scrolledContainer.setContent(content);
+		list = new BarcodeList(shell, SWT.BORDER, this);
+		list.setInput(document);
 
 		buttonBar = new Composite(shell, SWT.NONE);
 
@@ -135,7 +145,7 @@ public class Humbug extends RestartableApplication
 		addRow.setImage(Images.ADD);
 		addRow.setToolTipText(RB.getString(RB.TOOLTIP_BUTTON_ADD));
 		addRow.setText(RB.getString(RB.BUTTON_ADD));
-		addRow.addListener(SWT.Selection, event -> addRow(true));
+		addRow.addListener(SWT.Selection, event -> addEntry(new BarcodeEntry(), true));
 
 		Button clear = new Button(buttonBar, SWT.FLAT);
 		clear.setImage(Images.DELETE);
@@ -143,16 +153,13 @@ public class Humbug extends RestartableApplication
 		clear.setText(RB.getString(RB.BUTTON_CLEAR));
 		clear.addListener(SWT.Selection, event ->
 		{
-			if (!CollectionUtils.isEmpty(rows))
+			if (!document.isEmpty())
 			{
 				DialogUtils.showQuestion(RB.getString(RB.QUESTION_CONFIRM_CLEAR), result ->
 				{
 					if (result)
 					{
-						rows.forEach(BarcodeRow::dispose);
-						rows.clear();
-
-						scrolledContainer.setMinHeight(content.computeSize(SWT.DEFAULT, SWT.DEFAULT).y);
+						document.clear();
 					}
 				});
 			}
@@ -164,7 +171,7 @@ public class Humbug extends RestartableApplication
 		savePdf.setText(RB.getString(RB.BUTTON_PDF));
 		savePdf.addListener(SWT.Selection, event ->
 		{
-			if (CollectionUtils.isEmpty(rows))
+			if (document.isEmpty())
 			{
 				DialogUtils.showError(RB.getString(RB.ERROR_INPUT_EMPTY));
 			}
@@ -178,12 +185,12 @@ public class Humbug extends RestartableApplication
 
 				if (!StringUtils.isEmpty(filePath))
 				{
-					IRunnableWithProgress op = new PdfWriterThreadXsl(rows, new File(filePath));
+					IRunnableWithProgress op = new PdfWriterThreadXsl(document.snapshot(), new File(filePath));
 
 					/* Start the progress dialog */
 					try
 					{
-						new ProgressMonitorDialog(content.getShell()).run(true, true, op);
+						new ProgressMonitorDialog(shell).run(true, true, op);
 					}
 					catch (InvocationTargetException | InterruptedException e)
 					{
@@ -197,21 +204,97 @@ public class Humbug extends RestartableApplication
 			}
 		});
 
-		GridLayoutUtils.useDefault().applyTo(scrolledContainer);
-		GridLayoutUtils.useDefault().applyTo(content);
 		GridLayoutUtils.useValues(3, false).applyTo(buttonBar);
 		GridDataUtils.usePredefined(GridDataUtils.GridDataStyle.FILL_BOTTOM_FALSE).applyTo(buttonBar);
-		GridDataUtils.usePredefined(GridDataUtils.GridDataStyle.FILL_BOTH).applyTo(scrolledContainer);
-		GridDataUtils.usePredefined(GridDataUtils.GridDataStyle.FILL_BOTH).applyTo(content);
+		GridDataUtils.usePredefined(GridDataUtils.GridDataStyle.FILL_BOTH).applyTo(list);
 		GridDataUtils.usePredefined(GridDataUtils.GridDataStyle.BEGINNING_CENTER_FALSE).applyTo(addRow);
 		GridDataUtils.usePredefined(GridDataUtils.GridDataStyle.BEGINNING_CENTER).applyTo(clear);
 		GridDataUtils.usePredefined(GridDataUtils.GridDataStyle.END_CENTER_FALSE).applyTo(savePdf);
 
-		addRow(true);
+		addEntry(new BarcodeEntry(), true);
 
 		createMenuBar();
 	}
 
+	/**
+	 * Creates the find-as-you-type box above the list. Typing jumps to the first barcode starting with the text, pressing enter to the next one.
+	 * If filtering is enabled, only the matching barcodes are shown instead.
+	 */
+	private void createSearchBar()
+	{
+		searchBar = new Composite(shell, SWT.NONE);
+
+		search = new Text(searchBar, SWT.SEARCH | SWT.ICON_SEARCH | SWT.ICON_CANCEL);
+		search.setMessage(RB.getString(RB.SEARCH_MESSAGE));
+		search.addListener(SWT.Modify, event ->
+		{
+			searchMatch = null;
+
+			if (filter.getSelection())
+				list.setFilter(search.getText());
+			else
+				jumpToNextMatch();
+		});
+		search.addListener(SWT.DefaultSelection, event ->
+		{
+			if (event.detail == SWT.ICON_CANCEL)
+				search.setText("");
+			else if (!filter.getSelection())
+				jumpToNextMatch();
+		});
+
+		filter = new Button(searchBar, SWT.CHECK);
+		filter.setText(RB.getString(RB.BUTTON_FILTER));
+		filter.setToolTipText(RB.getString(RB.TOOLTIP_BUTTON_FILTER));
+		filter.addListener(SWT.Selection, event -> list.setFilter(filter.getSelection() ? search.getText() : null));
+
+		GridLayoutUtils.useValues(2, false).applyTo(searchBar);
+		GridDataUtils.usePredefined(GridDataUtils.GridDataStyle.FILL_TOP).applyTo(searchBar);
+		GridDataUtils.usePredefined(GridDataUtils.GridDataStyle.FILL_CENTER).applyTo(search);
+		GridDataUtils.usePredefined(GridDataUtils.GridDataStyle.END_CENTER_FALSE).applyTo(filter);
+	}
+
+	/**
+	 * Scrolls to the next {@link BarcodeEntry} starting with the search text. Starts from the top again after the last one.
+	 */
+	private void jumpToNextMatch()
+	{
+		String text = search.getText();
+
+		if (StringUtils.isEmpty(text))
+			return;
+
+		List<BarcodeEntry> matches = document.findByPrefix(text);
+
+		if (matches.isEmpty())
+			return;
+
+		/* Find the first match after the last one */
+		int current = searchMatch == null ? -1 : document.indexOf(searchMatch);
+		BarcodeEntry next = matches.get(0);
+
+		for (BarcodeEntry match : matches)
+		{
+			if (document.indexOf(match) > current)
+			{
+				next = match;
+				break;
+			}
+		}
+
+		searchMatch = next;
+		list.reveal(next);
+	}
+
+	/**
+	 * Clears the search, so that all entries are shown again
+	 */
+	private void clearSearch()
+	{
+		if (search != null && !search.isDisposed() && !StringUtils.isEmpty(search.getText()))
+			search.setText("");
+	}
+
 	/**
 	 * Creates the {@link Menu}.
 	 */
@@ -224,6 +307,7 @@ public class Humbug extends RestartableApplication
 		Menu menuBar = new Menu(shell, SWT.BAR);
 		Menu fileMenu = new Menu(menuBar);
 		Menu importMenu = new Menu(menuBar);
+		Menu editMenu = new Menu(menuBar);
 		final Menu aboutMenu = new Menu(menuBar);
 
         /* File */
@@ -236,6 +320,11 @@ public class Humbug extends RestartableApplication
 		item.setText(RB.getString(RB.MENU_MAIN_FILE_IMPORT));
 		item.setMenu(importMenu);
 
+        /* Edit */
+		item = new MenuItem(menuBar, SWT.CASCADE);
+		item.setText(RB.getString(RB.MENU_MAIN_EDIT));
+		item.setMenu(editMenu);
+
         /* Help */
 		item = new MenuItem(menuBar, SWT.CASCADE);
 		item.setText(RB.getString(RB.MENU_MAIN_HELP));
@@ -261,7 +350,7 @@ public class Humbug extends RestartableApplication
 		item.addListener(SWT.Selection, e ->
 		{
 			FileDialog dialog = new FileDialog(shell, SWT.OPEN);
-			dialog.setFilterExtensions(new String[]{"*.xml", "*.*"});
+			dialog.setFilterExtensions(new String[]{"*.xml;*.xml.gz", "*.*"});
 
 			String file = dialog.open();
 
@@ -269,6 +358,20 @@ public class Humbug extends RestartableApplication
 				importFromFile(file, FileUtils.ImportFileType.XML);
 		});
 
+		/* File - Import from CSV/TSV File */
+		item = new MenuItem(importMenu, SWT.NONE);
+		item.setText(RB.getString(RB.MENU_MAIN_FILE_IMPORT_CSV_FILE));
+		item.addListener(SWT.Selection, e ->
+		{
+			FileDialog dialog = new FileDialog(shell, SWT.OPEN);
+			dialog.setFilterExtensions(new String[]{"*.csv;*.tsv;*.tab", "*.*"});
+
+			String file = dialog.open();
+
+			if (!StringUtils.isEmpty(file))
+				importFromFile(file, FileUtils.ImportFileType.CSV);
+		});
+
         /* File - Import from Clipboard */
 		item = new MenuItem(importMenu, SWT.NONE);
 		item.setText(RB.getString(RB.MENU_MAIN_FILE_IMPORT_CLIPBOARD));
@@ -303,26 +406,26 @@ public class Humbug extends RestartableApplication
 		item.setText(RB.getString(RB.MENU_MAIN_FILE_EXPORT_XML_FILE));
 		item.addListener(SWT.Selection, e ->
 		{
-			if (CollectionUtils.isEmpty(rows))
+			if (document.isEmpty())
 			{
 				DialogUtils.showError(RB.getString(RB.ERROR_INPUT_EMPTY));
 			}
 			else if (checkInput())
 			{
 				FileDialog dialog = new FileDialog(shell, SWT.SAVE);
-				dialog.setFilterExtensions(new String[]{"*.xml"});
+				dialog.setFilterExtensions(new String[]{"*.xml", "*.xml.gz"});
 				dialog.setOverwrite(true);
 
 				String filePath = dialog.open();
 
 				if (!StringUtils.isEmpty(filePath))
 				{
-					IRunnableWithProgress op = new XmlWriterThread(rows, new File(filePath));
+					IRunnableWithProgress op = new XmlWriterThread(document.snapshot(), new File(filePath));
 
 					/* Start the progress dialog */
 					try
 					{
-						new ProgressMonitorDialog(content.getShell()).run(true, true, op);
+						new ProgressMonitorDialog(shell).run(true, true, op);
 					}
 					catch (InvocationTargetException | InterruptedException ex)
 					{
@@ -358,6 +461,39 @@ public class Humbug extends RestartableApplication
         /* File - Exit */
 		addQuitMenuItemListener(RB.getString(RB.MENU_MAIN_FILE_EXIT), fileMenu, e -> shutdown());
 
+		/* Edit - Sort */
+		item = new MenuItem(editMenu, SWT.NONE);
+		item.setText(RB.getString(RB.MENU_MAIN_EDIT_SORT_NATURAL));
+		item.addListener(SWT.Selection, e -> document.sort(BarcodeSortOrder.NATURAL.getComparator()));
+
+		item = new MenuItem(editMenu, SWT.NONE);
+		item.setText(RB.getString(RB.MENU_MAIN_EDIT_SORT_NUMERIC));
+		item.addListener(SWT.Selection, e -> document.sort(BarcodeSortOrder.NUMERIC.getComparator()));
+
+		item = new MenuItem(editMenu, SWT.NONE);
+		item.setText(RB.getString(RB.MENU_MAIN_EDIT_SORT_FORMAT));
+		item.addListener(SWT.Selection, e -> document.sort(BarcodeSortOrder.FORMAT.getComparator()));
+
+		/* Edit - Remove duplicates */
+		item = new MenuItem(editMenu, SWT.NONE);
+		item.setText(RB.getString(RB.MENU_MAIN_EDIT_REMOVE_DUPLICATES));
+		item.addListener(SWT.Selection, e ->
+		{
+			int removed = document.removeDuplicates();
+			DialogUtils.showInformation(RB.getString(RB.INFORMATION_DUPLICATES_REMOVED, removed));
+		});
+
+		new MenuItem(editMenu, SWT.SEPARATOR);
+
+		/* Edit - Selection */
+		item = new MenuItem(editMenu, SWT.NONE);
+		item.setText(RB.getString(RB.MENU_MAIN_EDIT_SELECT_ALL));
+		item.addListener(SWT.Selection, e -> list.setAllSelected(true));
+
+		item = new MenuItem(editMenu, SWT.NONE);
+		item.setText(RB.getString(RB.MENU_MAIN_EDIT_SELECT_NONE));
+		item.addListener(SWT.Selection, e -> list.setAllSelected(false));
+
 		/* Help - Online help */
 		item = new MenuItem(aboutMenu, SWT.NONE);
 		item.setText(RB.getString(RB.MENU_MAIN_HELP_ONLINE_HELP));
@@ -388,32 +524,21 @@ public class Humbug extends RestartableApplication
 	}
 
 	/**
-	 * Imports each row of the clipboard into a separate {@link BarcodeRow}
+	 * Imports each row of the clipboard into a separate {@link BarcodeEntry}
 	 *
 	 * @param data   The content of the clipboard
 	 * @param format The {@link BarcodeFormat} to use
 	 */
 	protected void importFromClipboard(String data, BarcodeFormat format)
 	{
-		/* If there is only one row */
-		if (rows.size() == 1)
-		{
-			BarcodeRow row = rows.get(0);
+		removeSingleEmptyEntry();
 
-            /* Remove it if it's empty */
-			if (StringUtils.isEmpty(row.getBarcode()))
-			{
-				row.dispose();
-				rows.remove(row);
-			}
-		}
-
-		IRunnableWithProgress op = new ClipboardImportThread(data, format);
+		IRunnableWithProgress op = new ClipboardImportThread(data, format, document);
 
         /* Start the progress dialog */
 		try
 		{
-			new ProgressMonitorDialog(content.getShell()).run(true, true, op);
+			new ProgressMonitorDialog(shell).run(true, true, op);
 		}
 		catch (InvocationTargetException | InterruptedException e)
 		{
@@ -422,7 +547,7 @@ public class Humbug extends RestartableApplication
 	}
 
 	/**
-	 * Imports each item of the input file into a separate {@link BarcodeRow}
+	 * Imports each item of the input file into a separate {@link BarcodeEntry}
 	 *
 	 * @param path The path of the file
 	 */
@@ -442,36 +567,29 @@ public class Humbug extends RestartableApplication
 			return;
 		}
 
-        /* If there is only one row */
-		if (rows.size() == 1)
-		{
-			BarcodeRow row = rows.get(0);
-
-            /* Remove it if it's empty */
-			if (StringUtils.isEmpty(row.getBarcode()))
-			{
-				row.dispose();
-				rows.remove(row);
-			}
-		}
+		removeSingleEmptyEntry();
 
 		IRunnableWithProgress op = null;
 
 		switch (type)
 		{
 			case TXT:
-				op = new TxtFileImportThread(file);
+				op = new TxtFileImportThread(file, document);
 				break;
 
 			case XML:
-				op = new XmlFileImportThread(file);
+				op = new XmlFileImportThread(file, document);
+				break;
+
+			case CSV:
+				op = new CsvFileImportThread(file, document);
 				break;
 		}
 
         /* Start the progress dialog */
 		try
 		{
-			new ProgressMonitorDialog(content.getShell()).run(true, true, op);
+			new ProgressMonitorDialog(shell).run(true, true, op);
 		}
 		catch (InvocationTargetException | InterruptedException e)
 		{
@@ -479,20 +597,24 @@ public class Humbug extends RestartableApplication
 		}
 	}
 
-	private boolean checkInput()
+	/**
+	 * Removes the only {@link BarcodeEntry} if it's empty, so imports don't start with an empty row
+	 */
+	private void removeSingleEmptyEntry()
 	{
-		Iterator<BarcodeRow> it = rows.iterator();
+		if (document.size() == 1 && StringUtils.isEmpty(document.get(0).getBarcode()))
+			document.clear();
+	}
 
-		while (it.hasNext())
+	private boolean checkInput()
+	{
+		for (BarcodeEntry entry : document.snapshot())
 		{
-			BarcodeRow row = it.next();
-			if (row == null)
+			if (entry == null)
 				return false;
-			else if (row.isDisposed())
-				it.remove();
-			else if (StringUtils.isEmpty(row.getBarcode()))
+			else if (StringUtils.isEmpty(entry.getBarcode()))
 				return false;
-			else if (row.getBufferedImage() == null)
+			else if (!BarcodeValidator.isValid(entry.getBarcode(), entry.getFormat()))
 				return false;
 		}
 
@@ -500,99 +622,115 @@ public class Humbug extends RestartableApplication
 	}
 
 	/**
-	 * Adds a new empty {@link BarcodeRow} to the {@link Humbug}.
+	 * Returns the {@link BarcodeDocument} containing all {@link BarcodeEntry} objects
 	 *
-	 * @param update Should the whole GUI be updated after adding the new item?
-	 * @return The newly generated {@link BarcodeRow}
+	 * @return The {@link BarcodeDocument} containing all {@link BarcodeEntry} objects
 	 */
-	public BarcodeRow addRow(boolean update)
+	public BarcodeDocument getDocument()
 	{
-		BarcodeRow row = new BarcodeRow(content, SWT.NONE, this);
-		rows.add(row);
+		return document;
+	}
 
-        /* Make sure to scroll to the activated row */
-		row.addListener(SWT.Activate, event ->
-		{
-			Control widget = (Control) event.widget;
-
-			Rectangle bounds = widget.getBounds();
-			Rectangle area = scrolledContainer.getClientArea();
-			Point origin = scrolledContainer.getOrigin();
-			if (origin.x > bounds.x)
-				origin.x = Math.max(0, bounds.x);
-			if (origin.y > bounds.y)
-				origin.y = Math.max(0, bounds.y);
-			if (origin.x + area.width < bounds.x + bounds.width)
-				origin.x = Math.max(0, bounds.x + bounds.width - area.width);
-			if (origin.y + area.height < bounds.y + bounds.height)
-				origin.y = Math.max(0, bounds.y + bounds.height - area.height);
-			scrolledContainer.setOrigin(origin);
-		});
+	/**
+	 * Adds the given {@link BarcodeEntry} to the {@link Humbug}.
+	 *
+	 * @param entry  The {@link BarcodeEntry} to add
+	 * @param update Should the whole GUI be updated after adding the new item? The new item is then scrolled into view and focused.
+	 * @return The added {@link BarcodeEntry}
+	 */
+	public BarcodeEntry addEntry(BarcodeEntry entry, boolean update)
+	{
+		document.add(entry);
 
 		if (update)
 		{
 			update();
 
-			Event event = new Event();
-			event.widget = row;
+			/* Make sure to scroll to the new entry and focus it once it's shown */
+			if (list.isFiltered())
+				clearSearch();
 
-			row.notifyListeners(SWT.Activate, event);
+			list.reveal(entry);
+			LayoutScheduler.afterLayout(() ->
+			{
+				BarcodeRow row = list.getRow(entry);
+				if (row != null)
+					row.focus();
+			});
 		}
 
-		return row;
+		return entry;
 	}
 
-	public void move(BarcodeRow row, int direction) throws IllegalArgumentException
+	public void move(BarcodeEntry entry, int direction) throws IllegalArgumentException
 	{
-		if (!(direction == -1 || direction == 1))
-			throw new IllegalArgumentException("Illegal direction: '" + direction + "'. Only +1 and -1 supported.");
-
-		int index = rows.indexOf(row);
+		/* Move all selected entries together, if the entry is one of them */
+		List<BarcodeEntry> selection = list.getSelection();
+		boolean moved;
 
-		if (Math.signum(direction) < 0 && index > 0 || Math.signum(direction) > 0 && index < rows.size() - 1)
-		{
-			BarcodeRow target = rows.get(index + direction);
-			rows.remove(index);
-			rows.add(index + direction, row);
-
-			if (Math.signum(direction) < 0)
-				row.moveAbove(target);
-			else
-				row.moveBelow(target);
-		}
+		if (selection.size() > 1 && list.isSelected(entry))
+			moved = document.move(selection, direction);
+		else
+			moved = document.move(entry, direction) != -1;
 
-		content.layout(true);
+		if (moved)
+			list.reveal(entry);
 	}
 
 	/**
-	 * Updates the content of the {@link Humbug}
+	 * Updates the content of the {@link Humbug}. Only visible rows whose text or {@link BarcodeFormat} changed are encoded again, resizing only
+	 * repaints.
 	 */
 	public void update()
 	{
-		shell.layout(true, true);
+		/* Bind the visible rows once the list has been laid out, however often this is called in the meantime */
+		list.refresh();
+		LayoutScheduler.afterLayout(redrawVisibleRows);
+	}
+
+	/**
+	 * Encodes the visible rows that need it again
+	 */
+	private void redrawVisibleRows()
+	{
+		if (list == null || list.isDisposed())
+			return;
 
-		BarcodeRow.RELAYOUT = false;
-		for (int i = 0; i < rows.size(); i++)
+		/* Collect the dirty rows */
+		List<BarcodeRow.Redraw> jobs = new ArrayList<>();
+		for (BarcodeRow row : list.getVisibleRows())
 		{
-			if (i == rows.size() - 1)
-				BarcodeRow.RELAYOUT = true;
+			BarcodeRow.Redraw job = row.prepareRedraw();
 
-			rows.get(i).forceRedraw();
+			if (job != null)
+				jobs.add(job);
 		}
 
-		scrolledContainer.setMinHeight(content.computeSize(SWT.DEFAULT, SWT.DEFAULT).y);
+		/* Encode all rows in parallel, then show the results in slices to keep the GUI responsive */
+		CompletableFuture.runAsync(() -> jobs.parallelStream().forEach(BarcodeRow.Redraw::render))
+						 .thenRun(() ->
+						 {
+							 for (int i = 0; i < jobs.size(); i += REDRAW_SLICE_SIZE)
+							 {
+								 List<BarcodeRow.Redraw> slice = jobs.subList(i, Math.min(i + REDRAW_SLICE_SIZE, jobs.size()));
+								 display.asyncExec(() -> slice.forEach(BarcodeRow.Redraw::apply));
+							 }
+						 })
+						 .exceptionally(e ->
+						 {
+							 e.printStackTrace();
+							 return null;
+						 });
 	}
 
 	/**
-	 * Deletes the given {@link BarcodeRow} from the {@link Humbug}
+	 * Deletes the given {@link BarcodeEntry} from the {@link Humbug}
 	 *
-	 * @param row The {@link BarcodeRow} to delete
+	 * @param entry The {@link BarcodeEntry} to delete
 	 */
-	public void onDelete(BarcodeRow row)
+	public void onDelete(BarcodeEntry entry)
 	{
-		rows.remove(row);
-		shell.layout(true, true);
-		scrolledContainer.setMinHeight(content.computeSize(SWT.DEFAULT, SWT.DEFAULT).y);
+		document.remove(entry);
 	}
 
 	private void checkForUpdate(boolean startupCall)
@@ -620,10 +758,12 @@ public class Humbug extends RestartableApplication
 		}
 	}
 
-	public void onEnterPressed(BarcodeRow barcodeRow)
+	public void onEnterPressed(BarcodeEntry entry)
 	{
-		if (rows.indexOf(barcodeRow) == rows.size() - 1)
-			addRow(true);
+		int size = document.size();
+
+		if (size > 0 && document.get(size - 1) == entry)
+			addEntry(new BarcodeEntry(), true);
 	}
 
 	@Override
@@ -49,18 +49,27 @@ public class RB extends jhi.swtcommons.gui.i18n.RB
 
 	public static final String INFORMATION_SAVE = "information.save";
 
+	public static final String WARNING_IMPORT_INVALID = "warning.import.invalid";
+
 	public static final String INFORMATION_NO_UPDATE_AVAILABLE = "information.no.update.available";
 
+	public static final String INFORMATION_DUPLICATES_REMOVED = "information.duplicates.removed";
+
 	public static final String TOOLTIP_BUTTON_ADD             = "tooltip.button.add";
 	public static final String TOOLTIP_BUTTON_CLEAR           = "tooltip.button.clear";
 	public static final String TOOLTIP_BUTTON_PDF             = "tooltip.button.pdf";
 	public static final String TOOLTIP_BUTTON_ASSOCIATE_IMAGE = "tooltip.button.associate.image";
 	public static final String TOOLTIP_BUTTON_SELECT          = "tooltip.button.image.select";
 	public static final String TOOLTIP_BUTTON_OPEN            = "tooltip.button.image.open";
+	public static final String TOOLTIP_BUTTON_FILTER          = "tooltip.button.filter";
+	public static final String TOOLTIP_BUTTON_SELECT_ROW      = "tooltip.button.select.row";
+
+	public static final String BUTTON_PDF    = "button.pdf";
+	public static final String BUTTON_CLEAR  = "button.clear";
+	public static final String BUTTON_ADD    = "button.add";
+	public static final String BUTTON_FILTER = "button.filter";
 
-	public static final String BUTTON_PDF   = "button.pdf";
-	public static final String BUTTON_CLEAR = "button.clear";
-	public static final String BUTTON_ADD   = "button.add";
+	public static final String SEARCH_MESSAGE = "search.message";
 
 	public static final String DIALOG_BUTTON_RUN = "dialog.button.run";
 
@@ -68,10 +77,18 @@ public class RB extends jhi.swtcommons.gui.i18n.RB
 	public static final String MENU_MAIN_FILE_IMPORT            = "menu.main.file.import";
 	public static final String MENU_MAIN_FILE_IMPORT_TXT_FILE   = "menu.main.file.import.txt.file";
 	public static final String MENU_MAIN_FILE_IMPORT_XML_FILE   = "menu.main.file.import.xml.file";
+	public static final String MENU_MAIN_FILE_IMPORT_CSV_FILE   = "menu.main.file.import.csv.file";
 	public static final String MENU_MAIN_FILE_IMPORT_CLIPBOARD  = "menu.main.file.import.clipboard";
 	public static final String MENU_MAIN_FILE_EXPORT_XML_FILE   = "menu.main.file.export.xml.file";
 	public static final String MENU_MAIN_FILE_BULK_IMAGE_RENAME = "menu.main.file.bulk.image.rename";
 	public static final String MENU_MAIN_FILE_EXIT              = "menu.main.file.exit";
+	public static final String MENU_MAIN_EDIT                   = "menu.main.edit";
+	public static final String MENU_MAIN_EDIT_SORT_NATURAL      = "menu.main.edit.sort.natural";
+	public static final String MENU_MAIN_EDIT_SORT_NUMERIC      = "menu.main.edit.sort.numeric";
+	public static final String MENU_MAIN_EDIT_SORT_FORMAT       = "menu.main.edit.sort.format";
+	public static final String MENU_MAIN_EDIT_REMOVE_DUPLICATES = "menu.main.edit.remove.duplicates";
+	public static final String MENU_MAIN_EDIT_SELECT_ALL        = "menu.main.edit.select.all";
+	public static final String MENU_MAIN_EDIT_SELECT_NONE       = "menu.main.edit.select.none";
 	public static final String MENU_MAIN_HELP                   = "menu.main.help";
 	public static final String MENU_MAIN_HELP_ONLINE_HELP       = "menu.main.help.online.help";
 	public static final String MENU_MAIN_HELP_SETTINGS          = "menu.main.help.settings";
@@ -0,0 +1,417 @@
+/*
+ *  Copyright 2017 Information and Computational Sciences,
+ *  The James Hutton Institute.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package jhi.humbug.gui.widget;
+
+import org.eclipse.swt.*;
+import org.eclipse.swt.graphics.*;
+import org.eclipse.swt.widgets.*;
+
+import java.util.*;
+import java.util.List;
+
+import jhi.humbug.gui.*;
+import jhi.humbug.model.*;
+import jhi.swtcommons.util.*;
+
+/**
+ * {@link BarcodeList} is a virtual list of {@link BarcodeEntry} objects. It only creates {@link BarcodeRow}s for the entries that are currently
+ * visible and binds them to other entries while scrolling, so the number of widgets doesn't depend on the number of entries. All rows have the
+ * same height. The list observes a {@link BarcodeDocument} and refreshes itself through the {@link LayoutScheduler} after it has changed.
+ * <p>
+ * A filter restricts the list to the entries whose text starts with it, see {@link #setFilter(String)}. Editing an entry doesn't hide it, even
+ * if it no longer matches the filter.
+ * <p>
+ * Entries can be selected using the check box of their row. The selection is used to move several entries at once.
+ *
+ * @author Sebastian Raubach
+ */
+public class BarcodeList extends Composite
+{
+	private final Humbug             holder;
+	/** The rows of the visible entries, the first row shows the entry at the top */
+	private final List<BarcodeRow>   rows       = new ArrayList<>();
+	private       BarcodeDocument    document;
+	private       int                itemHeight = -1;
+	/** The entry to scroll into view during the next layout */
+	private       BarcodeEntry       revealEntry;
+	private volatile boolean         refreshPending;
+	/** The prefix the entries are filtered by and the matching entries, or <code>null</code> to show all entries */
+	private       String             filter;
+	private       List<BarcodeEntry> filtered;
+	private volatile boolean         filterStale;
+	/** The selected entries, only accessed from the display thread */
+	private final Set<BarcodeEntry>  selection  = Collections.newSetFromMap(new IdentityHashMap<>());
+
+	private final BarcodeDocumentListener documentListener = new BarcodeDocumentListener()
+	{
+		@Override
+		public void entriesAdded(int index, List<BarcodeEntry> entries)
+		{
+			filterStale = true;
+			scheduleRefresh();
+		}
+
+		@Override
+		public void entriesRemoved(List<BarcodeEntry> entries)
+		{
+			filterStale = true;
+			scheduleRefresh();
+		}
+
+		@Override
+		public void entryChanged(BarcodeEntry entry, String oldBarcode)
+		{
+			scheduleRefresh();
+		}
+
+		@Override
+		public void entriesReordered()
+		{
+			filterStale = true;
+			scheduleRefresh();
+		}
+	};
+
+	public BarcodeList(Composite parent, int style, Humbug holder)
+	{
+		super(parent, style | SWT.V_SCROLL);
+
+		this.holder = holder;
+
+		setLayout(new VirtualLayout());
+		getVerticalBar().addListener(SWT.Selection, event -> layout(true));
+		addListener(SWT.Dispose, event -> setInput(null));
+	}
+
+	/**
+	 * Sets the {@link BarcodeDocument} to show
+	 *
+	 * @param document The {@link BarcodeDocument}
+	 */
+	public void setInput(BarcodeDocument document)
+	{
+		if (this.document != null)
+			this.document.removeListener(documentListener);
+
+		this.document = document;
+		filterStale = true;
+
+		if (document != null)
+		{
+			document.addListener(documentListener);
+
+			if (!isDisposed())
+				refresh();
+		}
+	}
+
+	/**
+	 * Updates the scroll bar and binds the visible rows to their entries at the end of the current event loop turn
+	 */
+	public void refresh()
+	{
+		refreshPending = false;
+		LayoutScheduler.schedule(this);
+	}
+
+	/**
+	 * Refreshes the list once the event loop gets to it. Changes to the {@link BarcodeDocument} can happen on any thread and in quick
+	 * succession, they're all handled by a single refresh.
+	 */
+	private void scheduleRefresh()
+	{
+		Display display = getDisplay();
+
+		synchronized (this)
+		{
+			if (refreshPending)
+				return;
+
+			refreshPending = true;
+		}
+
+		display.asyncExec(() ->
+		{
+			if (!isDisposed() && refreshPending)
+				refresh();
+		});
+	}
+
+	/**
+	 * Only shows the entries whose text starts with the given prefix, ignoring case
+	 *
+	 * @param filter The prefix or <code>null</code> to show all entries
+	 */
+	public void setFilter(String filter)
+	{
+		this.filter = StringUtils.isEmpty(filter) ? null : filter;
+		filterStale = true;
+		refresh();
+	}
+
+	/**
+	 * Returns <code>true</code> if the list is currently filtered
+	 *
+	 * @return <code>true</code> if the list is currently filtered
+	 */
+	public boolean isFiltered()
+	{
+		return filter != null;
+	}
+
+	/**
+	 * Looks up the entries matching the {@link #filter} again if the document has changed since the last time
+	 */
+	private void updateFilter()
+	{
+		if (!filterStale)
+			return;
+
+		filterStale = false;
+		filtered = (filter == null || document == null) ? null : document.findByPrefix(filter);
+	}
+
+	/**
+	 * Selects or deselects the given {@link BarcodeEntry}
+	 *
+	 * @param entry    The {@link BarcodeEntry}
+	 * @param selected Should the entry be selected?
+	 */
+	public void setSelected(BarcodeEntry entry, boolean selected)
+	{
+		if (selected)
+			selection.add(entry);
+		else
+			selection.remove(entry);
+	}
+
+	/**
+	 * Returns <code>true</code> if the given {@link BarcodeEntry} is selected
+	 *
+	 * @param entry The {@link BarcodeEntry}
+	 * @return <code>true</code> if the given {@link BarcodeEntry} is selected
+	 */
+	public boolean isSelected(BarcodeEntry entry)
+	{
+		return selection.contains(entry);
+	}
+
+	/**
+	 * Selects all entries that are currently shown, or none of them
+	 *
+	 * @param selected Should the entries be selected?
+	 */
+	public void setAllSelected(boolean selected)
+	{
+		selection.clear();
+
+		if (selected)
+		{
+			updateFilter();
+
+			if (filtered != null)
+				selection.addAll(filtered);
+			else if (document != null)
+				selection.addAll(document.getEntries());
+		}
+
+		refresh();
+	}
+
+	/**
+	 * Returns the selected entries in the order of the document. Entries that have been removed from the document in the meantime are dropped
+	 * from the selection.
+	 *
+	 * @return The selected entries in the order of the document
+	 */
+	public List<BarcodeEntry> getSelection()
+	{
+		if (document == null)
+			return new ArrayList<>();
+
+		selection.removeIf(entry -> document.indexOf(entry) == -1);
+
+		List<BarcodeEntry> result = new ArrayList<>(selection);
+		result.sort(Comparator.comparingInt(document::indexOf));
+
+		return result;
+	}
+
+	private int getEntryCount()
+	{
+		if (filtered != null)
+			return filtered.size();
+		else
+			return document == null ? 0 : document.size();
+	}
+
+	private BarcodeEntry getEntry(int index)
+	{
+		return filtered != null ? filtered.get(index) : document.get(index);
+	}
+
+	private int getViewIndex(BarcodeEntry entry)
+	{
+		if (filtered != null)
+			return filtered.indexOf(entry);
+		else
+			return document == null ? -1 : document.indexOf(entry);
+	}
+
+	/**
+	 * Scrolls the list so that the given entry is fully visible. This happens during the next layout, use {@link
+	 * LayoutScheduler#afterLayout(Runnable)} to access the row of the entry.
+	 *
+	 * @param entry The {@link BarcodeEntry}
+	 */
+	public void reveal(BarcodeEntry entry)
+	{
+		revealEntry = entry;
+		LayoutScheduler.schedule(this);
+	}
+
+	/**
+	 * Returns the {@link BarcodeRow} currently showing the given {@link BarcodeEntry}
+	 *
+	 * @param entry The {@link BarcodeEntry}
+	 * @return The {@link BarcodeRow} or <code>null</code> if the entry isn't visible
+	 */
+	public BarcodeRow getRow(BarcodeEntry entry)
+	{
+		for (BarcodeRow row : rows)
+		{
+			if (row.getVisible() && row.getEntry() == entry)
+				return row;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns the {@link BarcodeRow}s of the visible entries
+	 *
+	 * @return The {@link BarcodeRow}s of the visible entries
+	 */
+	public List<BarcodeRow> getVisibleRows()
+	{
+		List<BarcodeRow> result = new ArrayList<>();
+
+		for (BarcodeRow row : rows)
+		{
+			if (row.getVisible())
+				result.add(row);
+		}
+
+		return result;
+	}
+
+	private BarcodeRow createRow()
+	{
+		BarcodeRow row = new BarcodeRow(this, SWT.NONE, holder);
+		row.setVisible(false);
+		rows.add(row);
+
+		return row;
+	}
+
+	/**
+	 * Positions the rows for the current scroll position and binds them to the entries they show
+	 */
+	private void updateRows(Rectangle area)
+	{
+		/* The first row is needed to measure the height of all of them */
+		if (rows.isEmpty())
+			createRow();
+		if (itemHeight <= 0)
+			itemHeight = Math.max(1, rows.get(0).computeSize(SWT.DEFAULT, SWT.DEFAULT).y);
+
+		updateFilter();
+
+		int count = getEntryCount();
+
+		/* One more than fits, because the first one may only be visible partially */
+		int visible = Math.min(count, area.height / itemHeight + 2);
+
+		while (rows.size() < visible)
+			createRow();
+		while (rows.size() > Math.max(1, visible))
+			rows.remove(rows.size() - 1).dispose();
+
+		ScrollBar bar = getVerticalBar();
+		int total = count * itemHeight;
+		int page = Math.max(1, area.height);
+		int selection = bar.getSelection();
+
+		int revealIndex = revealEntry == null ? -1 : getViewIndex(revealEntry);
+		revealEntry = null;
+
+		if (revealIndex >= 0 && revealIndex < count)
+		{
+			int top = revealIndex * itemHeight;
+
+			if (top < selection)
+				selection = top;
+			else if (top + itemHeight > selection + page)
+				selection = top + itemHeight - page;
+		}
+
+		selection = Math.max(0, Math.min(selection, total - page));
+
+		bar.setValues(selection, 0, Math.max(total, page), page, itemHeight, page);
+
+		int first = selection / itemHeight;
+		int offset = selection % itemHeight;
+
+		for (int i = 0; i < rows.size(); i++)
+		{
+			BarcodeRow row = rows.get(i);
+			int index = first + i;
+
+			if (index < count)
+			{
+				row.bind(getEntry(index));
+				row.setBounds(area.x, area.y + i * itemHeight - offset, area.width, itemHeight);
+				row.setVisible(true);
+			}
+			else
+			{
+				row.setVisible(false);
+			}
+		}
+	}
+
+	/**
+	 * {@link VirtualLayout} lays out the rows of the {@link BarcodeList} whenever it's resized, scrolled or refreshed
+	 */
+	private class VirtualLayout extends Layout
+	{
+		@Override
+		protected Point computeSize(Composite composite, int wHint, int hHint, boolean flushCache)
+		{
+			Point size = rows.isEmpty() ? new Point(0, 0) : rows.get(0).computeSize(SWT.DEFAULT, SWT.DEFAULT);
+
+			return new Point(wHint == SWT.DEFAULT ? size.x : wHint, hHint == SWT.DEFAULT ? size.y : hHint);
+		}
+
+		@Override
+		protected void layout(Composite composite, boolean flushCache)
+		{
+			updateRows(composite.getClientArea());
+		}
+	}
+}
@@ -18,11 +18,6 @@
 package jhi.humbug.gui.widget;
 
 import com.google.zxing.*;
-import com.google.zxing.Writer;
-import com.google.zxing.client.j2se.*;
-import com.google.zxing.common.*;
-import com.google.zxing.oned.*;
-import com.google.zxing.qrcode.*;
 
 import org.eclipse.jface.fieldassist.*;
 import org.eclipse.jface.viewers.*;
@@ -34,7 +29,6 @@ import org.eclipse.swt.graphics.*;
 import org.eclipse.swt.layout.*;
 import org.eclipse.swt.widgets.*;
 
-import java.awt.image.*;
 import java.io.*;
 import java.util.*;
 
@@ -45,6 +39,8 @@ import jhi.humbug.gui.dialog.*;
 import jhi.humbug.gui.i18n.*;
 import jhi.humbug.gui.viewer.*;
 import jhi.humbug.gui.widget.listener.*;
+import jhi.humbug.model.*;
+import jhi.humbug.render.*;
 import jhi.humbug.util.*;
 import jhi.humbug.util.Resources.*;
 import jhi.swtcommons.gui.layout.*;
@@ -53,36 +49,65 @@ import jhi.swtcommons.util.StringUtils;
 
 /**
  * {@link BarcodeRow} is the main gui component of this application. Each row contains a {@link BarcodeFormatComboViewer} for the {@link
- * BarcodeFormat}, a {@link Text} to enter the barcode and a {@link Label} displaying the generated barcode.
+ * BarcodeFormat}, a {@link Text} to enter the barcode and a {@link Canvas} displaying the generated barcode.
+ * <p>
+ * Rows are editors for {@link BarcodeEntry} objects. The {@link BarcodeList} only creates rows for the visible entries and binds them to
+ * different entries while scrolling, see {@link #bind(BarcodeEntry)}. All changes are written straight back to the bound {@link BarcodeEntry}.
  *
  * @author Sebastian Raubach
  */
 public class BarcodeRow extends Composite
 {
-	public static boolean RELAYOUT = true;
+	/** The height hint of the preview. All rows have the same height, QR codes are scaled to fit. */
+	private static final int PREVIEW_HEIGHT_HINT = 60;
+
+	/** The maximum size of the preview at 100% zoom */
+	private static final int PREVIEW_WIDTH  = 240;
+	private static final int PREVIEW_HEIGHT = 120;
 
 	private GridData                 imageLayout;
+	private Button                   select;
 	private Text                     barcode;
 	private String                   barcodeString;
 	private BarcodeFormatComboViewer barcodeViewer;
 	private BarcodeFormat            barcodeFormat;
-	private Label                    barcodeImage;
+	private Canvas                   barcodeImage;
 	private Button                   associateImage;
 	private ScrolledComposite        barcodeImageWrapper;
 	private ControlDecoration        barcodeDecorator;
-	private File                     associatedImage;
-	private BufferedImage            bufferedImage;
-
-	private Humbug holder;
-
-	private boolean firstRun      = true;
-	private int     initialHeight = -1;
-
-	public BarcodeRow(Composite parent, int style, final Humbug holder)
+	private DebouncedRenderer        previewRenderer = new DebouncedRenderer();
+	/** The {@link RenderKey} of the preview that is shown or currently being encoded */
+	private RenderKey                previewKey;
+	/** The encoded modules of the preview, they are scaled to the size of {@link #barcodeImage} when painting */
+	private ModuleMatrix             modules;
+	/** The {@link RenderKey} of the {@link #modules} */
+	private RenderKey                modulesKey;
+	/** The scaled preview {@link Image} from the {@link PreviewImagePool} and its {@link RenderKey} */
+	private Image                    image;
+	private RenderKey                imageKey;
+	/** The {@link BarcodeEntry} this row is currently showing */
+	private BarcodeEntry             entry;
+	/** Set while the widgets are updated from the {@link #entry}, so they don't write back */
+	private boolean                  binding;
+
+	private Humbug      holder;
+	private BarcodeList list;
+
+	public BarcodeRow(BarcodeList parent, int style, final Humbug holder)
 	{
 		super(parent, style);
 
 		this.holder = holder;
+		this.list = parent;
+
+		/* Select the row to move it together with the other selected rows */
+		select = new Button(this, SWT.CHECK);
+		select.setToolTipText(RB.getString(RB.TOOLTIP_BUTTON_SELECT_ROW));
+		select.addListener(SWT.Selection, e ->
+		{
+			if (entry != null)
+				list.setSelected(entry, select.getSelection());
+		});
 
 		Composite upDown = new Composite(this, SWT.NONE);
 		Button up = new Button(upDown, SWT.PUSH);
@@ -90,8 +115,8 @@ public class BarcodeRow extends Composite
 		Button down = new Button(upDown, SWT.PUSH);
 		down.setImage(Images.DOWN);
 
-		up.addListener(SWT.Selection, e -> holder.move(BarcodeRow.this, -1));
-		down.addListener(SWT.Selection, e -> holder.move(BarcodeRow.this, +1));
+		up.addListener(SWT.Selection, e -> holder.move(entry, -1));
+		down.addListener(SWT.Selection, e -> holder.move(entry, +1));
 
 		Composite left = new Composite(this, SWT.NONE);
 		barcode = new Text(left, SWT.BORDER);
@@ -107,6 +132,10 @@ public class BarcodeRow extends Composite
 			@Override
 			public void handleEvent(Event event)
 			{
+				/* Binding takes care of the preview itself */
+				if (binding)
+					return;
+
 				final String oldS = barcode.getText();
 				final String newS = oldS.substring(0, event.start) + event.text + oldS.substring(event.end);
 
@@ -126,13 +155,18 @@ public class BarcodeRow extends Composite
 				}
 			}
 		});
+		barcode.addListener(SWT.Modify, event ->
+		{
+			if (entry != null)
+				holder.getDocument().setBarcode(entry, barcode.getText());
+		});
 		barcode.addListener(SWT.FocusIn, event -> barcode.setSelection(0, barcode.getText().length()));
 		barcode.addListener(SWT.FocusOut, event -> updateBarcode(barcode.getText()));
 		barcode.addListener(SWT.Traverse, event ->
 		{
 			if (event.detail == SWT.TRAVERSE_RETURN)
 			{
-				Humbug.getInstance().onEnterPressed(this);
+				Humbug.getInstance().onEnterPressed(entry);
 			}
 		});
 
@@ -146,10 +180,15 @@ public class BarcodeRow extends Composite
         /* Listen for selection events on the barcode type viewer */
 		barcodeViewer.addSelectionChangedListener(selectionChangedEvent ->
 		{
+			if (binding)
+				return;
+
 			barcodeFormat = barcodeViewer.getSelectedItem();
 
-			updateBarcode(barcode.getText(), true);
+			if (entry != null)
+				holder.getDocument().setFormat(entry, barcodeFormat);
 
+			/* The format change makes this row dirty, so the update will redraw it */
 			holder.update();
 		});
 
@@ -159,13 +198,18 @@ public class BarcodeRow extends Composite
 		barcodeImageWrapper.setExpandVertical(true);
 
         /* Create the image itself */
-		barcodeImage = new Label(barcodeImageWrapper, SWT.CENTER | SWT.DOUBLE_BUFFERED);
+		barcodeImage = new Canvas(barcodeImageWrapper, SWT.DOUBLE_BUFFERED);
 		barcodeImage.setBackground(Colors.WHITE);
-		barcodeImage.addListener(SWT.Dispose, event -> Images.disposeImage(barcodeImage.getImage()));
+		barcodeImage.addListener(SWT.Paint, this::paintModules);
+		barcodeImage.addListener(SWT.Dispose, event ->
+		{
+			previewRenderer.cancel();
+			releaseImage();
+		});
 		addContextMenu();
 
 		barcodeImageWrapper.setContent(barcodeImage);
-		barcodeImageWrapper.setMinSize(barcodeImage.computeSize(SWT.DEFAULT, SWT.DEFAULT));
+		barcodeImageWrapper.setMinSize(0, 0);
 
 		Composite actionButtons = new Composite(this, SWT.NONE);
 		/* Add a button to associate an image with the barcode */
@@ -174,13 +218,13 @@ public class BarcodeRow extends Composite
 		associateImage.setImage(Images.ADD_IMAGE);
 		associateImage.addListener(SWT.Selection, event ->
 		{
-			ImageAssociationDialog dialog = new ImageAssociationDialog(getShell(), associatedImage);
+			ImageAssociationDialog dialog = new ImageAssociationDialog(getShell(), entry == null ? null : entry.getAssociatedImage());
 
-			if (dialog.open() == Window.OK)
+			if (dialog.open() == Window.OK && entry != null)
 			{
-				associatedImage = dialog.getFile();
+				holder.getDocument().setAssociatedImage(entry, dialog.getFile());
 
-				associateImage.setImage(associatedImage == null ? Images.ADD_IMAGE : Images.LINKED_IMAGE);
+				associateImage.setImage(entry.getAssociatedImage() == null ? Images.ADD_IMAGE : Images.LINKED_IMAGE);
 			}
 		});
 
@@ -188,14 +232,10 @@ public class BarcodeRow extends Composite
 		Button deleteButton = new Button(actionButtons, SWT.FLAT);
 		deleteButton.setToolTipText(RB.getString(RB.GENERAL_DELETE));
 		deleteButton.setImage(Images.DELETE);
-		deleteButton.addListener(SWT.Selection, event ->
-		{
-			BarcodeRow.this.dispose();
-			holder.onDelete(BarcodeRow.this);
-		});
+		deleteButton.addListener(SWT.Selection, event -> holder.onDelete(entry));
 
 		/* Layout magic */
-		GridLayoutUtils.useValues(4, false).marginWidth(0).applyTo(this);
+		GridLayoutUtils.useValues(5, false).marginWidth(0).applyTo(this);
 		GridLayoutUtils.useValues(1, false).marginHeight(0).marginWidth(0).applyTo(upDown);
 		GridLayoutUtils.useValues(1, false).marginHeight(0).applyTo(left);
 		GridLayoutUtils.useValues(1, false).marginHeight(0).marginWidth(0).applyTo(actionButtons);
@@ -211,6 +251,7 @@ public class BarcodeRow extends Composite
 
 		GridDataUtils.usePredefined(GridDataUtils.GridDataStyle.FILL_BOTH).applyTo(barcodeImage);
 		imageLayout = GridDataUtils.usePredefined(GridDataUtils.GridDataStyle.FILL_BOTH).create();
+		imageLayout.heightHint = PREVIEW_HEIGHT_HINT;
 		barcodeImageWrapper.setLayoutData(imageLayout);
 		GridDataUtils.usePredefined(GridDataUtils.GridDataStyle.END_CENTER_FALSE).applyTo(deleteButton);
 
@@ -218,9 +259,57 @@ public class BarcodeRow extends Composite
 		left.setTabList(new Control[]{barcode});
 		this.setTabList(new Control[]{left});
 
-        /* Set the focus */
+	}
+
+	/**
+	 * Shows the given {@link BarcodeEntry} in this row. Rebinding the same entry only updates the widgets that are out of date.
+	 *
+	 * @param entry The {@link BarcodeEntry}
+	 */
+	public void bind(BarcodeEntry entry)
+	{
+		this.entry = entry;
+
+		binding = true;
+		try
+		{
+			if (!Objects.equals(barcode.getText(), entry.getBarcode()))
+				barcode.setText(entry.getBarcode());
+
+			if (barcodeFormat != entry.getFormat())
+			{
+				barcodeFormat = entry.getFormat();
+				barcodeViewer.setSelection(new StructuredSelection(barcodeFormat));
+			}
+
+			associateImage.setImage(entry.getAssociatedImage() == null ? Images.ADD_IMAGE : Images.LINKED_IMAGE);
+			select.setSelection(list.isSelected(entry));
+		}
+		finally
+		{
+			binding = false;
+		}
+
+		barcodeString = entry.getBarcode();
+		showPreview(barcodeString, 0);
+	}
+
+	/**
+	 * Returns the {@link BarcodeEntry} this row is currently showing
+	 *
+	 * @return The {@link BarcodeEntry} this row is currently showing
+	 */
+	public BarcodeEntry getEntry()
+	{
+		return entry;
+	}
+
+	/**
+	 * Moves the keyboard focus into the barcode text of this row
+	 */
+	public void focus()
+	{
 		barcode.setFocus();
-		barcode.forceFocus();
 	}
 
 	/**
@@ -245,9 +334,9 @@ public class BarcodeRow extends Composite
 				File outputfile = new File(path);
 				try
 				{
-					ImageIO.write(bufferedImage, "png", outputfile);
+					ImageIO.write(BarcodeRenderer.getInstance().toExportImage(barcodeString, barcodeFormat), "png", outputfile);
 				}
-				catch (IOException e)
+				catch (IOException | WriterException e)
 				{
 					DialogUtils.handleException(e);
 				}
@@ -259,30 +348,28 @@ public class BarcodeRow extends Composite
 		newItem.setImage(Images.COPY);
 
 		newItem.addListener(SWT.Selection, e -> {
-			Image image = new Image(Display.getDefault(), barcodeImage.getBounds());
-			GC gc = new GC(image);
-			barcodeImage.print(gc);
-			gc.dispose();
+			ImageData data;
+			try
+			{
+				BarcodeRenderer renderer = BarcodeRenderer.getInstance();
+				ModuleMatrix modules = renderer.getModules(barcodeString, barcodeFormat);
+				data = BitMatrixUtils.INSTANCE.toImageData(renderer.render(modules, BarcodeRenderer.EXPORT_WIDTH, BarcodeRenderer.getExportHeight(barcodeFormat)));
+			}
+			catch (IllegalArgumentException | WriterException ex)
+			{
+				DialogUtils.handleException(ex);
+				return;
+			}
 
 			Clipboard clipboard = new Clipboard(menu.getDisplay());
 			ImageTransfer imageTransfer = ImageTransfer.getInstance();
-			clipboard.setContents(new Object[]{image.getImageData()}, new Transfer[]{imageTransfer});
+			clipboard.setContents(new Object[]{data}, new Transfer[]{imageTransfer});
 		});
 
         /* Only show the menu if the barcode isn't empty */
 		barcodeImage.addListener(SWT.MenuDetect, event -> menu.setVisible(!StringUtils.isEmpty(getBarcode())));
 	}
 
-	public Image getImage()
-	{
-		Image image = new Image(Display.getDefault(), barcodeImage.getBounds());
-		GC gc = new GC(image);
-		barcodeImage.print(gc);
-		gc.dispose();
-
-		return image;
-	}
-
 	/**
 	 * Update the barcode image
 	 *
@@ -290,176 +377,241 @@ public class BarcodeRow extends Composite
 	 */
 	protected void updateBarcode(String text)
 	{
-		updateBarcode(text, false);
+		if (!StringUtils.isEmpty(text) && text.equals(barcodeString))
+			return;
+
+		/* Remember the selection */
+		barcodeString = text;
+
+		showPreview(text, DebouncedRenderer.DEBOUNCE_DELAY);
 	}
 
-	protected void updateBarcode(String text, boolean force)
+	/**
+	 * Shows the preview of the given text unless it's already shown or being rendered. Already encoded barcodes are shown straight away, all
+	 * others are encoded in the background after the given delay.
+	 *
+	 * @param text  The barcode text
+	 * @param delay The delay in milliseconds
+	 */
+	private void showPreview(String text, long delay)
 	{
-		if (!force && !StringUtils.isEmpty(text) && text.equals(barcodeString))
+		BarcodeRenderer renderer = BarcodeRenderer.getInstance();
+
+		if (!renderer.isSupported(barcodeFormat))
 			return;
 
-		if (firstRun)
-			initialHeight = barcodeImage.getSize().y - 18;
+		final Display display = getDisplay();
+		final RenderKey key = getPreviewKey(text);
+
+		if (key.equals(previewKey))
+			return;
 
-		if (barcodeFormat == BarcodeFormat.QR_CODE)
-			imageLayout.heightHint = 120;
-		else
-			imageLayout.heightHint = 60;
+		previewKey = key;
 
-		if (RELAYOUT)
+		/* Nothing to show yet, don't complain about new rows either */
+		if (StringUtils.isEmpty(text))
 		{
-			barcodeImageWrapper.setLayoutData(imageLayout);
-			barcodeImageWrapper.getParent().getParent().layout(true, true);
+			previewRenderer.cancel();
+			barcodeDecorator.hide();
+			clearPreview();
+			return;
 		}
 
-		firstRun = false;
-		/* Remember the selection */
-		barcodeString = text;
+		/* Invalid input is reported straight away without trying to encode it */
+		String error = BarcodeValidator.validate(text, barcodeFormat);
+		if (error != null)
+		{
+			previewRenderer.cancel();
+			setError(error);
+			return;
+		}
 
-		BitMatrix bitMatrix;
-		Writer writer;
-		try
+		ModuleMatrix cached = renderer.getCachedModules(text, barcodeFormat);
+		if (cached != null)
 		{
-			/* Create the Writer */
-			switch (barcodeFormat)
+			previewRenderer.cancel();
+			setPreview(key, cached);
+			return;
+		}
+
+		/* Don't show the preview of another barcode while this one is rendered */
+		if (delay == 0)
+			clearPreview();
+
+		previewRenderer.submit(text, barcodeFormat, delay, new DebouncedRenderer.Callback()
+		{
+			@Override
+			public void onRendered(long generation, ModuleMatrix modules)
 			{
-				case CODE_128:
-					writer = new Code128Writer();
-					break;
-				case CODE_39:
-					writer = new Code39Writer();
-					break;
-				case EAN_13:
-					writer = new EAN13Writer();
-					break;
-				case EAN_8:
-					writer = new EAN8Writer();
-					break;
-				case UPC_A:
-					writer = new UPCAWriter();
-					break;
-				case QR_CODE:
-					writer = new QRCodeWriter();
-					break;
-				default:
-					return;
+				display.asyncExec(() ->
+				{
+					if (!isDisposed() && previewRenderer.isCurrent(generation))
+						setPreview(key, modules);
+				});
 			}
 
-            /* Create the matrix and the image */
-			Point size = barcodeImageWrapper.getSize();
-
-			Map<EncodeHintType, Object> hints = new EnumMap<>(EncodeHintType.class);
-			hints.put(EncodeHintType.CHARACTER_SET, "UTF-8");
-			hints.put(EncodeHintType.MARGIN, 0); /* default = 4 */
+			@Override
+			public void onFailed(long generation, Exception e)
+			{
+				display.asyncExec(() ->
+				{
+					if (!isDisposed() && previewRenderer.isCurrent(generation))
+						setError(e.getLocalizedMessage());
+				});
+			}
+		});
+	}
 
-			bitMatrix = writer.encode(text,
-					barcodeFormat,
-					Math.min(240 * Resources.getZoomFactor() / 100, size.x - 20),
-					Math.min(120 * Resources.getZoomFactor() / 100, size.y - barcodeImageWrapper.getHorizontalBar().getSize().y - 2),
-					hints);
-//			bitMatrix = writer.encode(text, selectedItem, size.x - 20, size.y  - barcodeImageWrapper.getHorizontalBar().getSize().y - 2, null);
-			bufferedImage = MatrixToImageWriter.toBufferedImage(bitMatrix);
+	/**
+	 * Returns the {@link RenderKey} of the preview. The preview is scaled when painting, so its size isn't part of the key.
+	 *
+	 * @param text The barcode text
+	 * @return The {@link RenderKey} of the preview
+	 */
+	private RenderKey getPreviewKey(String text)
+	{
+		return new RenderKey(text, barcodeFormat);
+	}
 
-            /* Convert the AWT image to a SWT image */
-			ImageData data = AWTUtils.INSTANCE.convertToSWT(bufferedImage);
+	/**
+	 * Paints the {@link #modules} scaled to the client area of {@link #barcodeImage}. Modules are scaled by an integer factor and centered,
+	 * linear codes are stretched to the full height. The scaled image is shared with all other rows showing the same barcode at the same size.
+	 *
+	 * @param event The paint {@link Event}
+	 * @see PreviewImagePool
+	 */
+	private void paintModules(Event event)
+	{
+		if (modules == null)
+			return;
 
-            /* Dispose the old image */
-			Images.disposeImage(barcodeImage.getImage());
+		Rectangle area = barcodeImage.getClientArea();
+		int width = Math.min(PREVIEW_WIDTH * Resources.getZoomFactor() / 100, area.width);
+		int height = Math.min(PREVIEW_HEIGHT * Resources.getZoomFactor() / 100, area.height);
 
-            /* And set the new one */
-			if (data != null)
-				barcodeImage.setImage(new Image(null, data));
+		if (width <= 0 || height <= 0)
+			return;
 
-			barcodeImageWrapper.setMinSize(barcodeImage.computeSize(SWT.DEFAULT, SWT.DEFAULT));
-		}
-		catch (IllegalArgumentException e)
-		{
-			/* If something goes wrong, update the error message */
-			barcodeDecorator.setDescriptionText(e.getLocalizedMessage());
-			barcodeDecorator.show();
-			/* Remove the image */
-			bufferedImage = null;
-			Images.disposeImage(barcodeImage.getImage());
-			barcodeImage.setImage(null);
-			barcodeImageWrapper.setMinSize(barcodeImage.computeSize(SWT.DEFAULT, SWT.DEFAULT));
+		RenderKey key = new RenderKey(modulesKey.getText(), modulesKey.getFormat(), width, height);
 
-			return;
-		}
-		catch (WriterException e)
+		if (!key.equals(imageKey))
 		{
-			e.printStackTrace();
+			releaseImage();
+			image = PreviewImagePool.acquire(key, modules);
+			imageKey = key;
 		}
 
-        /* If we reach this, everything went well, so hide the error message */
-		barcodeDecorator.hide();
+		Rectangle bounds = image.getBounds();
+		event.gc.drawImage(image, area.x + (area.width - bounds.width) / 2, area.y + (area.height - bounds.height) / 2);
 	}
 
 	/**
-	 * Returns the {@link BufferedImage} of the barcode
-	 *
-	 * @return The {@link BufferedImage} of the barcode
+	 * Returns the preview {@link Image} to the {@link PreviewImagePool}
 	 */
-	public BufferedImage getBufferedImage()
+	private void releaseImage()
 	{
-		return bufferedImage;
+		if (imageKey != null)
+			PreviewImagePool.release(imageKey);
+
+		image = null;
+		imageKey = null;
 	}
 
 	/**
-	 * Returns the actual barcode text
+	 * Returns <code>true</code> if the text or the {@link BarcodeFormat} have changed since the preview has last been rendered
 	 *
-	 * @return The actual barcode text
+	 * @return <code>true</code> if the preview of this row is out of date
 	 */
-	public String getBarcode()
+	public boolean isDirty()
 	{
-		return barcodeString;
+		return !getPreviewKey(barcode.getText()).equals(previewKey);
 	}
 
 	/**
-	 * Sets the barcode text
+	 * Prepares a {@link Redraw} of this row. This has to be called on the display thread after the row has been laid out. Any pending preview
+	 * of this row is cancelled.
 	 *
-	 * @param text The barcode text
+	 * @return The {@link Redraw} or <code>null</code> if the row isn't dirty or the {@link BarcodeFormat} isn't supported
+	 * @see #isDirty()
 	 */
-	public void setBarcode(String text)
+	public Redraw prepareRedraw()
 	{
-		barcode.setText(text);
-		updateBarcode(text);
+		if (!isDirty())
+			return null;
+
+		barcodeString = barcode.getText();
+
+		if (!BarcodeRenderer.getInstance().isSupported(barcodeFormat))
+			return null;
+
+		/* Empty rows and cached barcodes don't need to be rendered */
+		if (StringUtils.isEmpty(barcodeString) || BarcodeRenderer.getInstance().getCachedModules(barcodeString, barcodeFormat) != null)
+		{
+			showPreview(barcodeString, 0);
+			return null;
+		}
+
+		previewKey = getPreviewKey(barcodeString);
+
+		return new Redraw(this, previewRenderer.cancel(), previewKey);
 	}
 
 	/**
-	 * Returns the associated image
+	 * Shows the given modules as the barcode preview
 	 *
-	 * @return The associated image
+	 * @param key     The {@link RenderKey} of the modules
+	 * @param modules The {@link ModuleMatrix} of the barcode
 	 */
-	public File getAssociatedImage()
+	private void setPreview(RenderKey key, ModuleMatrix modules)
 	{
-		return associatedImage;
-	}
+		if (!key.equals(modulesKey))
+			releaseImage();
 
-	public void setAssociatedImage(File associatedImage)
-	{
-		this.associatedImage = associatedImage;
-		this.associateImage.setImage(associatedImage == null ? Images.ADD_IMAGE : Images.LINKED_IMAGE);
+		this.modules = modules;
+		this.modulesKey = key;
+
+        /* Only scroll if there's less than one pixel per module */
+		barcodeImageWrapper.setMinSize(modules.getWidth(), modules.isLinear() ? 0 : modules.getHeight());
+		barcodeImage.redraw();
+
+        /* Everything went well, so hide the error message */
+		barcodeDecorator.hide();
 	}
 
 	/**
-	 * Sets the {@link BarcodeFormat}
+	 * Removes the barcode preview and shows the given error message
 	 *
-	 * @param format The {@link BarcodeFormat}
+	 * @param message The error message
 	 */
-	public void setBarcodeFormat(BarcodeFormat format, boolean reveal)
+	private void setError(String message)
 	{
-		barcodeFormat = format;
+		/* If something goes wrong, update the error message */
+		barcodeDecorator.setDescriptionText(message);
+		barcodeDecorator.show();
+		/* Remove the image */
+		clearPreview();
+	}
 
-		if (reveal)
-			barcodeViewer.setSelection(new StructuredSelection(format), reveal);
+	/**
+	 * Removes the barcode preview
+	 */
+	private void clearPreview()
+	{
+		modules = null;
+		modulesKey = null;
+		releaseImage();
+		barcodeImageWrapper.setMinSize(0, 0);
+		barcodeImage.redraw();
 	}
 
 	/**
-	 * Forces the barcode to be redrawn
+	 * Returns the actual barcode text
+	 *
+	 * @return The actual barcode text
 	 */
-	public void forceRedraw()
+	public String getBarcode()
 	{
-		updateBarcode(barcode.getText(), true);
+		return barcodeString;
 	}
 
 	public BarcodeFormat getBarcodeFormat()
@@ -472,4 +624,57 @@ public class BarcodeRow extends Composite
 	{
 		return barcodeString;
 	}
+
+	/**
+	 * {@link Redraw} splits redrawing a {@link BarcodeRow} into two phases. {@link #render()} encodes the barcode without
+	 * touching any widgets and can run on any thread. {@link #apply()} shows the result and has to run on the display thread.
+	 */
+	public static class Redraw
+	{
+		private final BarcodeRow row;
+		private final long       generation;
+		private final RenderKey  key;
+
+		private ModuleMatrix modules;
+		private String       error;
+
+		private Redraw(BarcodeRow row, long generation, RenderKey key)
+		{
+			this.row = row;
+			this.generation = generation;
+			this.key = key;
+		}
+
+		/**
+		 * Encodes the barcode. Can be called from any thread.
+		 */
+		public void render()
+		{
+			try
+			{
+				error = BarcodeValidator.validate(key.getText(), key.getFormat());
+
+				if (error == null)
+					modules = BarcodeRenderer.getInstance().getModules(key.getText(), key.getFormat());
+			}
+			catch (IllegalArgumentException | WriterException e)
+			{
+				error = e.getLocalizedMessage();
+			}
+		}
+
+		/**
+		 * Shows the result in the row unless the row has been disposed or changed in the meantime. Has to be called on the display thread.
+		 */
+		public void apply()
+		{
+			if (row.isDisposed() || !row.previewRenderer.isCurrent(generation))
+				return;
+
+			if (error != null)
+				row.setError(error);
+			else
+				row.setPreview(key, modules);
+		}
+	}
 }
@@ -0,0 +1,171 @@
+/*
+ *  Copyright 2017 Information and Computational Sciences,
+ *  The James Hutton Institute.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package jhi.humbug.gui.widget;
+
+import org.eclipse.swt.*;
+import org.eclipse.swt.widgets.*;
+
+import java.util.*;
+import java.util.List;
+
+/**
+ * {@link LayoutScheduler} coalesces layout requests. Instead of laying out a {@link Composite} straight away, it's marked as dirty and all dirty
+ * composites are laid out once at the end of the current event loop turn. Composites whose parent is laid out recursively anyway are skipped.
+ * <p>
+ * Layouts can be suspended during bulk changes, see {@link #suspend()}.
+ * <p>
+ * All methods have to be called from the user interface thread.
+ *
+ * @author Sebastian Raubach
+ */
+public final class LayoutScheduler
+{
+	/** The dirty composites and whether their children should be laid out as well */
+	private static final Map<Composite, Boolean> DIRTY        = new LinkedHashMap<>();
+	/** The runnables to run after the next layout */
+	private static final Set<Runnable>           AFTER_LAYOUT = new LinkedHashSet<>();
+	private static       boolean                 scheduled    = false;
+	private static       int                     suspended    = 0;
+
+	private LayoutScheduler()
+	{
+	}
+
+	/**
+	 * Marks the given {@link Composite} as dirty. It will be laid out once at the end of the current event loop turn.
+	 *
+	 * @param composite The {@link Composite} to lay out
+	 */
+	public static void schedule(Composite composite)
+	{
+		schedule(composite, false);
+	}
+
+	/**
+	 * Marks the given {@link Composite} as dirty. It will be laid out once at the end of the current event loop turn.
+	 *
+	 * @param composite The {@link Composite} to lay out
+	 * @param all       Should all children be laid out as well? See {@link Composite#layout(boolean, boolean)}.
+	 */
+	public static void schedule(Composite composite, boolean all)
+	{
+		checkThread();
+
+		DIRTY.merge(composite, all, Boolean::logicalOr);
+		scheduleFlush();
+	}
+
+	/**
+	 * Runs the given {@link Runnable} once the next scheduled layout is done. Adding the same instance several times only runs it once.
+	 *
+	 * @param runnable The {@link Runnable} to run
+	 */
+	public static void afterLayout(Runnable runnable)
+	{
+		checkThread();
+
+		AFTER_LAYOUT.add(runnable);
+		scheduleFlush();
+	}
+
+	/**
+	 * Suspends all scheduled layouts until {@link #resume()} is called. Composites are still marked as dirty and laid out once layouts are
+	 * resumed. Calls can be nested.
+	 */
+	public static void suspend()
+	{
+		checkThread();
+
+		suspended++;
+	}
+
+	/**
+	 * Resumes the layouts suspended by {@link #suspend()}
+	 */
+	public static void resume()
+	{
+		checkThread();
+
+		if (suspended > 0 && --suspended == 0 && !(DIRTY.isEmpty() && AFTER_LAYOUT.isEmpty()))
+			scheduleFlush();
+	}
+
+	/**
+	 * Lays out all dirty composites straight away
+	 */
+	public static void flush()
+	{
+		checkThread();
+
+		scheduled = false;
+
+		Map<Composite, Boolean> dirty = new LinkedHashMap<>(DIRTY);
+		List<Runnable> runnables = new ArrayList<>(AFTER_LAYOUT);
+		DIRTY.clear();
+		AFTER_LAYOUT.clear();
+
+		for (Map.Entry<Composite, Boolean> entry : dirty.entrySet())
+		{
+			Composite composite = entry.getKey();
+
+			if (!composite.isDisposed() && !isCoveredByParent(composite, dirty))
+				composite.layout(true, entry.getValue());
+		}
+
+		runnables.forEach(Runnable::run);
+	}
+
+	private static void scheduleFlush()
+	{
+		if (scheduled || suspended > 0)
+			return;
+
+		scheduled = true;
+		Display.getCurrent().asyncExec(() ->
+		{
+			if (!scheduled)
+				return;
+
+			/* Suspended in the meantime, resume() schedules it again */
+			if (suspended > 0)
+				scheduled = false;
+			else
+				flush();
+		});
+	}
+
+	/**
+	 * Checks whether one of the parents of the given {@link Composite} is laid out recursively anyway
+	 */
+	private static boolean isCoveredByParent(Composite composite, Map<Composite, Boolean> dirty)
+	{
+		for (Composite parent = composite.getParent(); parent != null; parent = parent.getParent())
+		{
+			if (Boolean.TRUE.equals(dirty.get(parent)) && !parent.isDisposed())
+				return true;
+		}
+
+		return false;
+	}
+
+	private static void checkThread()
+	{
+		if (Display.getCurrent() == null)
+			SWT.error(SWT.ERROR_THREAD_INVALID_ACCESS);
+	}
+}
@@ -0,0 +1,121 @@
+/*
+ *  Copyright 2017 Information and Computational Sciences,
+ *  The James Hutton Institute.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package jhi.humbug.gui.widget;
+
+import org.eclipse.swt.*;
+import org.eclipse.swt.graphics.*;
+import org.eclipse.swt.widgets.*;
+
+import java.util.*;
+
+import jhi.humbug.render.*;
+import jhi.humbug.util.*;
+
+/**
+ * {@link PreviewImagePool} shares the preview {@link Image}s of the {@link BarcodeRow}s. Rows showing the same barcode at the same size use the
+ * same native image. Images are reference counted: every {@link #acquire(RenderKey, ModuleMatrix)} has to be matched by a {@link
+ * #release(RenderKey)} and the image is disposed once the last row has released it.
+ * <p>
+ * All methods have to be called from the user interface thread.
+ *
+ * @author Sebastian Raubach
+ */
+public final class PreviewImagePool
+{
+	private static final Map<RenderKey, PooledImage> IMAGES = new HashMap<>();
+
+	private PreviewImagePool()
+	{
+	}
+
+	/**
+	 * Returns the preview {@link Image} for the given {@link RenderKey}, creating it from the given {@link ModuleMatrix} if no other row uses
+	 * it yet. The width and height of the key are the size the modules are scaled to.
+	 *
+	 * @param key     The {@link RenderKey} including the size of the image
+	 * @param modules The {@link ModuleMatrix} of the barcode
+	 * @return The shared {@link Image}, don't dispose it, call {@link #release(RenderKey)} instead
+	 */
+	public static Image acquire(RenderKey key, ModuleMatrix modules)
+	{
+		checkThread();
+
+		PooledImage pooled = IMAGES.get(key);
+
+		if (pooled == null || pooled.image.isDisposed())
+		{
+			ImageData data = BitMatrixUtils.INSTANCE.toImageData(BarcodeRenderer.getInstance().render(modules, key.getWidth(), key.getHeight()));
+			pooled = new PooledImage(new Image(Display.getCurrent(), data));
+			IMAGES.put(key, pooled);
+		}
+
+		pooled.references++;
+
+		return pooled.image;
+	}
+
+	/**
+	 * Releases the preview {@link Image} for the given {@link RenderKey}. It's disposed if no other row uses it.
+	 *
+	 * @param key The {@link RenderKey} passed to {@link #acquire(RenderKey, ModuleMatrix)}
+	 */
+	public static void release(RenderKey key)
+	{
+		checkThread();
+
+		PooledImage pooled = IMAGES.get(key);
+
+		if (pooled == null)
+			return;
+
+		if (--pooled.references <= 0)
+		{
+			IMAGES.remove(key);
+
+			if (!pooled.image.isDisposed())
+				pooled.image.dispose();
+		}
+	}
+
+	/**
+	 * Returns the number of native images currently held by the pool
+	 *
+	 * @return The number of native images currently held by the pool
+	 */
+	public static int size()
+	{
+		return IMAGES.size();
+	}
+
+	private static void checkThread()
+	{
+		if (Display.getCurrent() == null)
+			SWT.error(SWT.ERROR_THREAD_INVALID_ACCESS);
+	}
+
+	private static class PooledImage
+	{
+		private final Image image;
+		private       int   references;
+
+		private PooledImage(Image image)
+		{
+			this.image = image;
+		}
+	}
+}
@@ -37,7 +37,7 @@ public class ConwayListener implements Listener
 	private static final int SPEED = 100;
 
 	private Cell[][] cells;
-	private Label    control;
+	private Control  control;
 	private Point    controlSize;
 	private int      top;
 	private int      left;
@@ -51,14 +51,11 @@ public class ConwayListener implements Listener
 
 	private Runnable runnable;
 
-	private Image image;
 	private Color background;
 
-	public ConwayListener(final Label control)
+	public ConwayListener(final Control control)
 	{
-		this.image = control.getImage();
 		this.background = control.getBackground();
-		control.setImage(null);
 		control.setBackground(null);
 		controlSize = control.getSize();
 		this.control = control;
@@ -146,8 +143,6 @@ public class ConwayListener implements Listener
 		isStopped = true;
 		if (control != null && !control.isDisposed())
 		{
-			if (image != null && !image.isDisposed())
-				control.setImage(image);
 			if (background != null && !background.isDisposed())
 				control.setBackground(background);
 			control.removeListener(SWT.Paint, ConwayListener.this);
@@ -0,0 +1,412 @@
+/*
+ *  Copyright 2017 Information and Computational Sciences,
+ *  The James Hutton Institute.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package jhi.humbug.model;
+
+import com.google.zxing.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * {@link BarcodeDocument} is the list of {@link BarcodeEntry} objects the user is working on. All changes to the list and to its entries go
+ * through the document, which notifies its {@link BarcodeDocumentListener}s. The GUI only observes the document, imports, exports and other
+ * background jobs work on it directly.
+ * <p>
+ * All methods are thread-safe. Listeners are notified on the thread that made the change, after the change has been made. Background jobs
+ * should work on a {@link #snapshot()}, which can't change underneath them.
+ * <p>
+ * The document keeps a {@link BarcodeIndex} of its entries, so {@link #indexOf(BarcodeEntry)}, {@link #find(String)} and {@link
+ * #findByPrefix(String)} don't have to search the whole list.
+ *
+ * @author Sebastian Raubach
+ */
+public class BarcodeDocument
+{
+	private final List<BarcodeEntry>            entries   = new ArrayList<>();
+	private final BarcodeIndex                  index     = new BarcodeIndex();
+	private final List<BarcodeDocumentListener> listeners = new CopyOnWriteArrayList<>();
+
+	public void addListener(BarcodeDocumentListener listener)
+	{
+		listeners.add(listener);
+	}
+
+	public void removeListener(BarcodeDocumentListener listener)
+	{
+		listeners.remove(listener);
+	}
+
+	public synchronized int size()
+	{
+		return entries.size();
+	}
+
+	public synchronized boolean isEmpty()
+	{
+		return entries.isEmpty();
+	}
+
+	public synchronized BarcodeEntry get(int index)
+	{
+		return entries.get(index);
+	}
+
+	public synchronized int indexOf(BarcodeEntry entry)
+	{
+		return index.positionOf(entry);
+	}
+
+	/**
+	 * Returns all entries with the given barcode text, ignoring case
+	 *
+	 * @param text The barcode text
+	 * @return All matching entries in the order of the document
+	 */
+	public synchronized List<BarcodeEntry> find(String text)
+	{
+		return index.find(entries, text);
+	}
+
+	/**
+	 * Returns all entries whose barcode text starts with the given prefix, ignoring case
+	 *
+	 * @param prefix The prefix
+	 * @return All matching entries in the order of the document
+	 */
+	public synchronized List<BarcodeEntry> findByPrefix(String prefix)
+	{
+		return index.findByPrefix(entries, prefix);
+	}
+
+	/**
+	 * Returns all entries in their current order. The list is a copy, but the entries themselves are part of the document and can only be
+	 * changed through it.
+	 *
+	 * @return All entries in their current order
+	 */
+	public synchronized List<BarcodeEntry> getEntries()
+	{
+		return new ArrayList<>(entries);
+	}
+
+	/**
+	 * Returns a copy of all entries. The copies aren't part of the document, so they won't change while a background job is working on them.
+	 *
+	 * @return A copy of all entries
+	 */
+	public synchronized List<BarcodeEntry> snapshot()
+	{
+		List<BarcodeEntry> result = new ArrayList<>(entries.size());
+
+		for (BarcodeEntry entry : entries)
+			result.add(new BarcodeEntry(entry));
+
+		return result;
+	}
+
+	/**
+	 * Adds the given {@link BarcodeEntry} at the end of the document
+	 *
+	 * @param entry The {@link BarcodeEntry} to add
+	 */
+	public void add(BarcodeEntry entry)
+	{
+		addAll(Collections.singletonList(entry));
+	}
+
+	/**
+	 * Adds all given {@link BarcodeEntry} objects at the end of the document. Listeners are notified once.
+	 *
+	 * @param toAdd The {@link BarcodeEntry} objects to add
+	 */
+	public void addAll(Collection<BarcodeEntry> toAdd)
+	{
+		if (toAdd.isEmpty())
+			return;
+
+		List<BarcodeEntry> added = new ArrayList<>(toAdd);
+		int index;
+
+		synchronized (this)
+		{
+			index = entries.size();
+			entries.addAll(added);
+
+			for (int i = 0; i < added.size(); i++)
+				this.index.add(added.get(i), index + i);
+		}
+
+		added = Collections.unmodifiableList(added);
+
+		for (BarcodeDocumentListener listener : listeners)
+			listener.entriesAdded(index, added);
+	}
+
+	/**
+	 * Removes the given {@link BarcodeEntry} from the document
+	 *
+	 * @param entry The {@link BarcodeEntry} to remove
+	 */
+	public void remove(BarcodeEntry entry)
+	{
+		synchronized (this)
+		{
+			int position = index.positionOf(entry);
+
+			if (position == -1)
+				return;
+
+			entries.remove(position);
+			index.remove(entry);
+			index.updatePositions(entries, position);
+		}
+
+		List<BarcodeEntry> removed = Collections.singletonList(entry);
+
+		for (BarcodeDocumentListener listener : listeners)
+			listener.entriesRemoved(removed);
+	}
+
+	/**
+	 * Removes all entries from the document
+	 */
+	public void clear()
+	{
+		List<BarcodeEntry> removed;
+
+		synchronized (this)
+		{
+			if (entries.isEmpty())
+				return;
+
+			removed = Collections.unmodifiableList(new ArrayList<>(entries));
+			entries.clear();
+			index.clear();
+		}
+
+		for (BarcodeDocumentListener listener : listeners)
+			listener.entriesRemoved(removed);
+	}
+
+	/**
+	 * Moves the given {@link BarcodeEntry} up or down by one
+	 *
+	 * @param entry     The {@link BarcodeEntry} to move
+	 * @param direction Either -1 to move it up or +1 to move it down
+	 * @return The new index of the {@link BarcodeEntry} or -1 if it hasn't been moved
+	 * @throws IllegalArgumentException Thrown if the direction isn't -1 or +1
+	 */
+	public int move(BarcodeEntry entry, int direction) throws IllegalArgumentException
+	{
+		if (!(direction == -1 || direction == 1))
+			throw new IllegalArgumentException("Illegal direction: '" + direction + "'. Only +1 and -1 supported.");
+
+		int target;
+
+		synchronized (this)
+		{
+			int position = index.positionOf(entry);
+			target = position + direction;
+
+			if (position < 0 || target < 0 || target >= entries.size())
+				return -1;
+
+			Collections.swap(entries, position, target);
+			index.swapped(entries.get(position), position, entry, target);
+		}
+
+		for (BarcodeDocumentListener listener : listeners)
+			listener.entriesReordered();
+
+		return target;
+	}
+
+	/**
+	 * Moves all given entries up or down by one, keeping the gaps between them. If one of them can't be moved any further, none of them is
+	 * moved.
+	 *
+	 * @param selection The entries to move
+	 * @param direction Either -1 to move them up or +1 to move them down
+	 * @return <code>true</code> if the entries have been moved
+	 * @throws IllegalArgumentException Thrown if the direction isn't -1 or +1
+	 */
+	public boolean move(Collection<BarcodeEntry> selection, int direction) throws IllegalArgumentException
+	{
+		if (!(direction == -1 || direction == 1))
+			throw new IllegalArgumentException("Illegal direction: '" + direction + "'. Only +1 and -1 supported.");
+
+		synchronized (this)
+		{
+			int[] positions = selection.stream()
+									   .mapToInt(index::positionOf)
+									   .filter(position -> position != -1)
+									   .sorted()
+									   .distinct()
+									   .toArray();
+
+			if (positions.length == 0 || positions[0] + direction < 0 || positions[positions.length - 1] + direction >= entries.size())
+				return false;
+
+			/* Move the first entry in the direction of travel first, so the others can follow into the gap */
+			for (int i = 0; i < positions.length; i++)
+			{
+				int position = positions[direction < 0 ? i : positions.length - 1 - i];
+				int target = position + direction;
+
+				Collections.swap(entries, position, target);
+				index.swapped(entries.get(position), position, entries.get(target), target);
+			}
+		}
+
+		for (BarcodeDocumentListener listener : listeners)
+			listener.entriesReordered();
+
+		return true;
+	}
+
+	/**
+	 * Sorts all entries using the given {@link Comparator}. The sort is stable, so equal entries keep their order.
+	 *
+	 * @param comparator The {@link Comparator}, see {@link BarcodeSortOrder}
+	 */
+	public void sort(Comparator<? super BarcodeEntry> comparator)
+	{
+		synchronized (this)
+		{
+			entries.sort(comparator);
+			index.updatePositions(entries, 0);
+		}
+
+		for (BarcodeDocumentListener listener : listeners)
+			listener.entriesReordered();
+	}
+
+	/**
+	 * Removes all entries with the same text and {@link BarcodeFormat} as an entry before them
+	 *
+	 * @return The number of removed entries
+	 */
+	public int removeDuplicates()
+	{
+		List<BarcodeEntry> removed = new ArrayList<>();
+
+		synchronized (this)
+		{
+			Map<BarcodeFormat, Set<String>> seen = new EnumMap<>(BarcodeFormat.class);
+			List<BarcodeEntry> kept = new ArrayList<>(entries.size());
+
+			for (BarcodeEntry entry : entries)
+			{
+				if (seen.computeIfAbsent(entry.getFormat(), k -> new HashSet<>()).add(entry.getBarcode()))
+				{
+					kept.add(entry);
+				}
+				else
+				{
+					removed.add(entry);
+					index.remove(entry);
+				}
+			}
+
+			if (removed.isEmpty())
+				return 0;
+
+			entries.clear();
+			entries.addAll(kept);
+			index.updatePositions(entries, 0);
+		}
+
+		removed = Collections.unmodifiableList(removed);
+
+		for (BarcodeDocumentListener listener : listeners)
+			listener.entriesRemoved(removed);
+
+		return removed.size();
+	}
+
+	/**
+	 * Sets the barcode text of the given {@link BarcodeEntry}
+	 *
+	 * @param entry   The {@link BarcodeEntry}
+	 * @param barcode The new barcode text
+	 */
+	public void setBarcode(BarcodeEntry entry, String barcode)
+	{
+		String old;
+
+		synchronized (this)
+		{
+			old = entry.getBarcode();
+
+			if (Objects.equals(old, barcode))
+				return;
+
+			entry.setBarcode(barcode);
+
+			if (index.positionOf(entry) != -1)
+				index.changed(entry, old);
+		}
+
+		fireChanged(entry, old);
+	}
+
+	/**
+	 * Sets the {@link BarcodeFormat} of the given {@link BarcodeEntry}
+	 *
+	 * @param entry  The {@link BarcodeEntry}
+	 * @param format The new {@link BarcodeFormat}
+	 */
+	public void setFormat(BarcodeEntry entry, BarcodeFormat format)
+	{
+		synchronized (this)
+		{
+			if (entry.getFormat() == format)
+				return;
+
+			entry.setFormat(format);
+		}
+
+		fireChanged(entry, entry.getBarcode());
+	}
+
+	/**
+	 * Sets the image associated with the given {@link BarcodeEntry}
+	 *
+	 * @param entry The {@link BarcodeEntry}
+	 * @param image The associated image or <code>null</code>
+	 */
+	public void setAssociatedImage(BarcodeEntry entry, File image)
+	{
+		synchronized (this)
+		{
+			if (Objects.equals(entry.getAssociatedImage(), image))
+				return;
+
+			entry.setAssociatedImage(image);
+		}
+
+		fireChanged(entry, entry.getBarcode());
+	}
+
+	private void fireChanged(BarcodeEntry entry, String oldBarcode)
+	{
+		for (BarcodeDocumentListener listener : listeners)
+			listener.entryChanged(entry, oldBarcode);
+	}
+}
@@ -0,0 +1,65 @@
+/*
+ *  Copyright 2017 Information and Computational Sciences,
+ *  The James Hutton Institute.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package jhi.humbug.model;
+
+import java.util.*;
+
+/**
+ * {@link BarcodeDocumentListener} is notified about changes to a {@link BarcodeDocument}. All methods do nothing by default, so listeners only
+ * need to implement what they're interested in. Listeners are called on the thread that made the change.
+ *
+ * @author Sebastian Raubach
+ */
+public interface BarcodeDocumentListener
+{
+	/**
+	 * Called after entries have been added
+	 *
+	 * @param index   The index of the first added entry
+	 * @param entries The added entries
+	 */
+	default void entriesAdded(int index, List<BarcodeEntry> entries)
+	{
+	}
+
+	/**
+	 * Called after entries have been removed
+	 *
+	 * @param entries The removed entries
+	 */
+	default void entriesRemoved(List<BarcodeEntry> entries)
+	{
+	}
+
+	/**
+	 * Called after the text, the format or the associated image of an entry have changed
+	 *
+	 * @param entry      The changed entry
+	 * @param oldBarcode The barcode text before the change
+	 */
+	default void entryChanged(BarcodeEntry entry, String oldBarcode)
+	{
+	}
+
+	/**
+	 * Called after the order of the entries has changed
+	 */
+	default void entriesReordered()
+	{
+	}
+}
@@ -0,0 +1,114 @@
+/*
+ *  Copyright 2017 Information and Computational Sciences,
+ *  The James Hutton Institute.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package jhi.humbug.model;
+
+import com.google.zxing.*;
+
+import java.io.*;
+
+import jhi.humbug.util.*;
+
+/**
+ * {@link BarcodeEntry} is a single barcode of the list: its text, its {@link BarcodeFormat} and the optionally associated image. It doesn't
+ * depend on any widgets, the GUI only shows the entries that are currently visible. Once an entry is part of a {@link BarcodeDocument}, it can
+ * only be changed through the document.
+ *
+ * @author Sebastian Raubach
+ */
+public class BarcodeEntry
+{
+	private String        barcode;
+	private BarcodeFormat format;
+	private File          associatedImage;
+
+	/**
+	 * Creates a new, empty {@link BarcodeEntry} with the default {@link BarcodeFormat} from the settings
+	 */
+	public BarcodeEntry()
+	{
+		this("", getDefaultFormat());
+	}
+
+	public BarcodeEntry(String barcode, BarcodeFormat format)
+	{
+		this(barcode, format, null);
+	}
+
+	public BarcodeEntry(String barcode, BarcodeFormat format, File associatedImage)
+	{
+		this.barcode = barcode;
+		this.format = format;
+		this.associatedImage = associatedImage;
+	}
+
+	/**
+	 * Creates a copy of the given {@link BarcodeEntry}
+	 *
+	 * @param other The {@link BarcodeEntry} to copy
+	 */
+	public BarcodeEntry(BarcodeEntry other)
+	{
+		this(other.barcode, other.format, other.associatedImage);
+	}
+
+	/**
+	 * Returns the default {@link BarcodeFormat} from the settings
+	 *
+	 * @return The default {@link BarcodeFormat} from the settings
+	 */
+	public static BarcodeFormat getDefaultFormat()
+	{
+		return (BarcodeFormat) HumbugParameterStore.INSTANCE.get(HumbugParameter.barcodeFormat);
+	}
+
+	public String getBarcode()
+	{
+		return barcode;
+	}
+
+	void setBarcode(String barcode)
+	{
+		this.barcode = barcode;
+	}
+
+	public BarcodeFormat getFormat()
+	{
+		return format;
+	}
+
+	void setFormat(BarcodeFormat format)
+	{
+		this.format = format;
+	}
+
+	public File getAssociatedImage()
+	{
+		return associatedImage;
+	}
+
+	void setAssociatedImage(File associatedImage)
+	{
+		this.associatedImage = associatedImage;
+	}
+
+	@Override
+	public String toString()
+	{
+		return barcode;
+	}
+}
@@ -0,0 +1,201 @@
+/*
+ *  Copyright 2017 Information and Computational Sciences,
+ *  The James Hutton Institute.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package jhi.humbug.model;
+
+import java.util.*;
+
+/**
+ * {@link BarcodeIndex} indexes the entries of a {@link BarcodeDocument}. It knows the position of every entry and keeps the entries sorted by
+ * their case-insensitive barcode text, so looking up an entry, a text or a prefix doesn't need to go through the whole document.
+ * <p>
+ * The index isn't thread-safe, the {@link BarcodeDocument} updates and queries it while holding its lock.
+ *
+ * @author Sebastian Raubach
+ */
+final class BarcodeIndex
+{
+	/** The position of each entry in the document */
+	private final Map<BarcodeEntry, Integer>               positions = new IdentityHashMap<>();
+	/** The entries by their normalized text, sorted for prefix lookups */
+	private final NavigableMap<String, Set<BarcodeEntry>> byText    = new TreeMap<>();
+
+	/**
+	 * Normalizes the given barcode text for lookups
+	 *
+	 * @param text The barcode text
+	 * @return The normalized text
+	 */
+	static String normalize(String text)
+	{
+		return text == null ? "" : text.toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Adds the given entry to the index
+	 *
+	 * @param entry    The entry
+	 * @param position The position of the entry in the document
+	 */
+	void add(BarcodeEntry entry, int position)
+	{
+		positions.put(entry, position);
+		addText(entry, entry.getBarcode());
+	}
+
+	/**
+	 * Removes the given entry from the index. The positions of the other entries have to be updated using {@link #updatePositions(List, int)}.
+	 *
+	 * @param entry The entry
+	 */
+	void remove(BarcodeEntry entry)
+	{
+		positions.remove(entry);
+		removeText(entry, entry.getBarcode());
+	}
+
+	/**
+	 * Moves the given entry to its new barcode text
+	 *
+	 * @param entry   The entry with the new text
+	 * @param oldText The text before the change
+	 */
+	void changed(BarcodeEntry entry, String oldText)
+	{
+		removeText(entry, oldText);
+		addText(entry, entry.getBarcode());
+	}
+
+	/**
+	 * Updates the positions of all entries from the given index to the end
+	 *
+	 * @param entries The entries of the document
+	 * @param from    The first index that has changed
+	 */
+	void updatePositions(List<BarcodeEntry> entries, int from)
+	{
+		for (int i = from; i < entries.size(); i++)
+			positions.put(entries.get(i), i);
+	}
+
+	/**
+	 * Updates the positions of the two given entries after they've been swapped
+	 */
+	void swapped(BarcodeEntry first, int firstPosition, BarcodeEntry second, int secondPosition)
+	{
+		positions.put(first, firstPosition);
+		positions.put(second, secondPosition);
+	}
+
+	void clear()
+	{
+		positions.clear();
+		byText.clear();
+	}
+
+	/**
+	 * Returns the position of the given entry
+	 *
+	 * @param entry The entry
+	 * @return The position of the entry or -1 if it isn't part of the document
+	 */
+	int positionOf(BarcodeEntry entry)
+	{
+		Integer position = positions.get(entry);
+
+		return position == null ? -1 : position;
+	}
+
+	/**
+	 * Returns all entries whose text starts with the given prefix, ignoring case, in the order of the document
+	 *
+	 * @param entries The entries of the document
+	 * @param prefix  The prefix
+	 * @return All matching entries in the order of the document
+	 */
+	List<BarcodeEntry> findByPrefix(List<BarcodeEntry> entries, String prefix)
+	{
+		String normalized = normalize(prefix);
+
+		/* Everything matches, no need to look anything up */
+		if (normalized.isEmpty())
+			return new ArrayList<>(entries);
+
+		BitSet matches = new BitSet(entries.size());
+
+		for (Map.Entry<String, Set<BarcodeEntry>> entry : byText.tailMap(normalized, true).entrySet())
+		{
+			if (!entry.getKey().startsWith(normalized))
+				break;
+
+			mark(entry.getValue(), matches);
+		}
+
+		return collect(entries, matches);
+	}
+
+	/**
+	 * Returns all entries with the given text, ignoring case, in the order of the document
+	 *
+	 * @param entries The entries of the document
+	 * @param text    The text
+	 * @return All matching entries in the order of the document
+	 */
+	List<BarcodeEntry> find(List<BarcodeEntry> entries, String text)
+	{
+		BitSet matches = new BitSet(entries.size());
+		Set<BarcodeEntry> found = byText.get(normalize(text));
+
+		if (found != null)
+			mark(found, matches);
+
+		return collect(entries, matches);
+	}
+
+	/**
+	 * Sets the bits of the positions of the given entries. Collecting the entries by their position afterwards is cheaper than sorting them.
+	 */
+	private void mark(Set<BarcodeEntry> found, BitSet matches)
+	{
+		for (BarcodeEntry entry : found)
+			matches.set(positions.get(entry));
+	}
+
+	private static List<BarcodeEntry> collect(List<BarcodeEntry> entries, BitSet matches)
+	{
+		List<BarcodeEntry> result = new ArrayList<>(matches.cardinality());
+
+		for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1))
+			result.add(entries.get(i));
+
+		return result;
+	}
+
+	private void addText(BarcodeEntry entry, String text)
+	{
+		byText.computeIfAbsent(normalize(text), k -> Collections.newSetFromMap(new IdentityHashMap<>())).add(entry);
+	}
+
+	private void removeText(BarcodeEntry entry, String text)
+	{
+		String key = normalize(text);
+		Set<BarcodeEntry> matches = byText.get(key);
+
+		if (matches != null && matches.remove(entry) && matches.isEmpty())
+			byText.remove(key);
+	}
+}
@@ -0,0 +1,163 @@
+/*
+ *  Copyright 2017 Information and Computational Sciences,
+ *  The James Hutton Institute.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package jhi.humbug.model;
+
+import java.math.*;
+import java.util.*;
+
+/**
+ * {@link BarcodeSortOrder} contains the orders a {@link BarcodeDocument} can be sorted in, see {@link BarcodeDocument#sort(Comparator)}.
+ *
+ * @author Sebastian Raubach
+ */
+public enum BarcodeSortOrder
+{
+	/** By text, ignoring case. Runs of digits are compared by their value, so "A2" comes before "A10". */
+	NATURAL(Comparator.comparing(BarcodeEntry::getBarcode, BarcodeSortOrder::compareNatural)),
+	/** Numbers first, ordered by their value, then all other barcodes in {@link #NATURAL} order */
+	NUMERIC(Comparator.comparing(BarcodeEntry::getBarcode, BarcodeSortOrder::compareNumeric)),
+	/** By {@link com.google.zxing.BarcodeFormat} name, then in {@link #NATURAL} order */
+	FORMAT(Comparator.comparing((BarcodeEntry entry) -> entry.getFormat().name()).thenComparing(NATURAL.comparator));
+
+	private final Comparator<BarcodeEntry> comparator;
+
+	BarcodeSortOrder(Comparator<BarcodeEntry> comparator)
+	{
+		this.comparator = comparator;
+	}
+
+	public Comparator<BarcodeEntry> getComparator()
+	{
+		return comparator;
+	}
+
+	/**
+	 * Compares the two strings ignoring case, comparing runs of digits by their value
+	 */
+	static int compareNatural(String a, String b)
+	{
+		int i = 0;
+		int j = 0;
+
+		while (i < a.length() && j < b.length())
+		{
+			char c = a.charAt(i);
+			char d = b.charAt(j);
+
+			if (Character.isDigit(c) && Character.isDigit(d))
+			{
+				/* Skip leading zeros, then the longer run is the larger number */
+				int startA = i;
+				int startB = j;
+				while (startA < a.length() - 1 && a.charAt(startA) == '0' && Character.isDigit(a.charAt(startA + 1)))
+					startA++;
+				while (startB < b.length() - 1 && b.charAt(startB) == '0' && Character.isDigit(b.charAt(startB + 1)))
+					startB++;
+
+				int endA = startA;
+				int endB = startB;
+				while (endA < a.length() && Character.isDigit(a.charAt(endA)))
+					endA++;
+				while (endB < b.length() && Character.isDigit(b.charAt(endB)))
+					endB++;
+
+				int result = Integer.compare(endA - startA, endB - startB);
+				for (int k = 0; result == 0 && k < endA - startA; k++)
+					result = Character.compare(a.charAt(startA + k), b.charAt(startB + k));
+
+				if (result != 0)
+					return result;
+
+				i = endA;
+				j = endB;
+			}
+			else
+			{
+				int result = Character.compare(Character.toLowerCase(c), Character.toLowerCase(d));
+
+				if (result != 0)
+					return result;
+
+				i++;
+				j++;
+			}
+		}
+
+		int result = Integer.compare(a.length() - i, b.length() - j);
+
+		/* Only differ in case or leading zeros */
+		return result != 0 ? result : a.compareTo(b);
+	}
+
+	/**
+	 * Compares the two strings by their numeric value. Numbers come before all other strings, which are compared using {@link
+	 * #compareNatural(String, String)}.
+	 */
+	static int compareNumeric(String a, String b)
+	{
+		boolean numberA = isNumber(a);
+		boolean numberB = isNumber(b);
+
+		if (numberA && numberB)
+		{
+			int result = new BigDecimal(a).compareTo(new BigDecimal(b));
+
+			return result != 0 ? result : a.compareTo(b);
+		}
+		else if (numberA)
+		{
+			return -1;
+		}
+		else if (numberB)
+		{
+			return 1;
+		}
+		else
+		{
+			return compareNatural(a, b);
+		}
+	}
+
+	/**
+	 * Checks whether the given string is a decimal number with an optional sign, so it can be parsed without an exception
+	 */
+	private static boolean isNumber(String text)
+	{
+		int i = 0;
+
+		if (text.length() > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+'))
+			i++;
+
+		boolean digits = false;
+		boolean point = false;
+
+		for (; i < text.length(); i++)
+		{
+			char c = text.charAt(i);
+
+			if (c >= '0' && c <= '9')
+				digits = true;
+			else if (c == '.' && !point)
+				point = true;
+			else
+				return false;
+		}
+
+		return digits;
+	}
+}
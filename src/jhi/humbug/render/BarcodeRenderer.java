@@ -0,0 +1,289 @@
+/*
+ *  Copyright 2017 Information and Computational Sciences,
+ *  The James Hutton Institute.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package jhi.humbug.render;
+
+import com.google.zxing.*;
+import com.google.zxing.Writer;
+import com.google.zxing.common.*;
+import com.google.zxing.oned.*;
+import com.google.zxing.qrcode.*;
+
+import java.awt.image.*;
+import java.util.*;
+
+/**
+ * {@link BarcodeRenderer} is the headless barcode engine of Humbug. It keeps one {@link Writer} and one immutable hint {@link Map} per {@link
+ * BarcodeFormat} and encodes barcodes into {@link ModuleMatrix} objects that can then be rasterized to any size.
+ * <p>
+ * The ZXing writers used here don't hold any state between calls, so a single instance of {@link BarcodeRenderer} can safely be used from any
+ * thread. Encoded modules and rasterized images are kept in a shared {@link RenderCache}, so rendering the same barcode again is a lookup.
+ *
+ * @author Sebastian Raubach
+ */
+public class BarcodeRenderer
+{
+	/** The width of exported and saved barcode images in pixels */
+	public static final int EXPORT_WIDTH         = 480;
+	/** The height of exported and saved linear barcode images in pixels */
+	public static final int EXPORT_HEIGHT_LINEAR = 96;
+	/** The height of exported and saved QR code images in pixels */
+	public static final int EXPORT_HEIGHT_MATRIX = 240;
+
+	private static final BarcodeRenderer INSTANCE = new BarcodeRenderer();
+
+	private final Map<BarcodeFormat, Writer>                      writers = new EnumMap<>(BarcodeFormat.class);
+	private final Map<BarcodeFormat, Map<EncodeHintType, Object>> hints   = new EnumMap<>(BarcodeFormat.class);
+
+	/** Caches the encoded modules, they are tiny, so we can keep a lot of them */
+	private final RenderCache<ModuleMatrix>  moduleCache = new RenderCache<>(Math.min(32L << 20, Runtime.getRuntime().maxMemory() / 16),
+			m -> 64 + m.getWidth() * m.getHeight() / 8);
+	/** Caches the rasterized images (1 bit per pixel) */
+	private final RenderCache<BufferedImage> imageCache  = new RenderCache<>(Math.min(128L << 20, Runtime.getRuntime().maxMemory() / 8),
+			i -> 64 + (i.getWidth() + 7) / 8 * (long) i.getHeight());
+
+	private BarcodeRenderer()
+	{
+		register(BarcodeFormat.CODE_128, new Code128Writer());
+		register(BarcodeFormat.CODE_39, new Code39Writer());
+		register(BarcodeFormat.EAN_13, new EAN13Writer());
+		register(BarcodeFormat.EAN_8, new EAN8Writer());
+		register(BarcodeFormat.UPC_A, new UPCAWriter());
+		register(BarcodeFormat.QR_CODE, new QRCodeWriter());
+	}
+
+	/**
+	 * Returns the instance of {@link BarcodeRenderer}
+	 *
+	 * @return The instance of {@link BarcodeRenderer}
+	 */
+	public static BarcodeRenderer getInstance()
+	{
+		return INSTANCE;
+	}
+
+	/**
+	 * Returns the height of exported images for the given {@link BarcodeFormat}
+	 *
+	 * @param format The {@link BarcodeFormat}
+	 * @return The height of exported images for the given {@link BarcodeFormat}
+	 */
+	public static int getExportHeight(BarcodeFormat format)
+	{
+		return format == BarcodeFormat.QR_CODE ? EXPORT_HEIGHT_MATRIX : EXPORT_HEIGHT_LINEAR;
+	}
+
+	private void register(BarcodeFormat format, Writer writer)
+	{
+		Map<EncodeHintType, Object> map = new EnumMap<>(EncodeHintType.class);
+		map.put(EncodeHintType.CHARACTER_SET, "UTF-8");
+		map.put(EncodeHintType.MARGIN, 0); /* default = 4 */
+
+		writers.put(format, writer);
+		hints.put(format, Collections.unmodifiableMap(map));
+	}
+
+	/**
+	 * Returns <code>true</code> if the given {@link BarcodeFormat} can be encoded by this renderer
+	 *
+	 * @param format The {@link BarcodeFormat}
+	 * @return <code>true</code> if the given {@link BarcodeFormat} can be encoded by this renderer
+	 */
+	public boolean isSupported(BarcodeFormat format)
+	{
+		return format != null && writers.containsKey(format);
+	}
+
+	/**
+	 * Encodes the given text into a {@link ModuleMatrix} with one bit per module
+	 *
+	 * @param text   The barcode text
+	 * @param format The {@link BarcodeFormat}
+	 * @return The {@link ModuleMatrix}
+	 * @throws WriterException          Thrown if ZXing fails to encode the text
+	 * @throws IllegalArgumentException Thrown if the text isn't valid for the {@link BarcodeFormat}
+	 */
+	public ModuleMatrix encode(String text, BarcodeFormat format) throws WriterException
+	{
+		Writer writer = writers.get(format);
+
+		if (writer == null)
+			throw new IllegalArgumentException("Unsupported barcode format: " + format);
+
+		/* A size of 0x0 makes ZXing return one pixel per module */
+		return new ModuleMatrix(format, writer.encode(text, format, 0, 0, hints.get(format)));
+	}
+
+	/**
+	 * Returns the (cached) {@link ModuleMatrix} of the given text
+	 *
+	 * @param text   The barcode text
+	 * @param format The {@link BarcodeFormat}
+	 * @return The {@link ModuleMatrix}
+	 * @throws WriterException          Thrown if ZXing fails to encode the text
+	 * @throws IllegalArgumentException Thrown if the text isn't valid for the {@link BarcodeFormat}
+	 */
+	public ModuleMatrix getModules(String text, BarcodeFormat format) throws WriterException
+	{
+		return moduleCache.get(new RenderKey(text, format), key -> encode(key.getText(), key.getFormat()));
+	}
+
+	/**
+	 * Returns the {@link ModuleMatrix} of the given text if it has already been encoded. This never encodes anything, so it's cheap enough to be
+	 * called on the display thread.
+	 *
+	 * @param text   The barcode text
+	 * @param format The {@link BarcodeFormat}
+	 * @return The cached {@link ModuleMatrix} or <code>null</code> if the text hasn't been encoded yet
+	 */
+	public ModuleMatrix getCachedModules(String text, BarcodeFormat format)
+	{
+		return moduleCache.get(new RenderKey(text, format));
+	}
+
+	/**
+	 * Returns the (cached) {@link BufferedImage} of the given text in the given size. The returned image is shared and must not be modified.
+	 *
+	 * @param text   The barcode text
+	 * @param format The {@link BarcodeFormat}
+	 * @param width  The target width in pixels
+	 * @param height The target height in pixels
+	 * @return The {@link BufferedImage}
+	 * @throws WriterException          Thrown if ZXing fails to encode the text
+	 * @throws IllegalArgumentException Thrown if the text isn't valid for the {@link BarcodeFormat}
+	 */
+	public BufferedImage getImage(String text, BarcodeFormat format, int width, int height) throws WriterException
+	{
+		return imageCache.get(new RenderKey(text, format, width, height), key -> toBufferedImage(getModules(text, format), width, height));
+	}
+
+	/**
+	 * Scales the given {@link ModuleMatrix} to fit the given size. Modules are scaled by an integer factor and centered, linear codes are
+	 * stretched to the full height. This is the same layout the ZXing writers create.
+	 *
+	 * @param matrix The {@link ModuleMatrix}
+	 * @param width  The target width in pixels
+	 * @param height The target height in pixels
+	 * @return The scaled {@link BitMatrix}
+	 */
+	public BitMatrix render(ModuleMatrix matrix, int width, int height)
+	{
+		boolean linear = matrix.isLinear();
+		int inputWidth = matrix.getWidth();
+		int inputHeight = matrix.getHeight();
+		int outputWidth = Math.max(width, inputWidth);
+		int outputHeight = Math.max(height, linear ? 1 : inputHeight);
+
+		int multipleX = outputWidth / inputWidth;
+		int multipleY = linear ? outputHeight : outputHeight / inputHeight;
+
+		if (!linear)
+			multipleX = multipleY = Math.min(multipleX, multipleY);
+
+		int left = (outputWidth - inputWidth * multipleX) / 2;
+		int top = (outputHeight - inputHeight * multipleY) / 2;
+
+		BitMatrix output = new BitMatrix(outputWidth, outputHeight);
+		BitArray row = new BitArray(inputWidth);
+
+		for (int y = 0; y < inputHeight; y++)
+		{
+			row = matrix.getRow(y, row);
+
+			/* Set whole runs of dark modules at once */
+			int x = row.getNextSet(0);
+			while (x < inputWidth)
+			{
+				int end = row.getNextUnset(x);
+				output.setRegion(left + x * multipleX, top + y * multipleY, (end - x) * multipleX, multipleY);
+				x = row.getNextSet(end);
+			}
+		}
+
+		return output;
+	}
+
+	/**
+	 * Scales the given {@link ModuleMatrix} to fit the given size and returns it as a black and white {@link BufferedImage} with one bit per
+	 * pixel ({@link BufferedImage#TYPE_BYTE_BINARY}). The raster is filled directly from the modules rather than pixel by pixel. Its default
+	 * palette is a grey ramp, so PNGs are written as 1-bit greyscale without a palette.
+	 *
+	 * @param matrix The {@link ModuleMatrix}
+	 * @param width  The target width in pixels
+	 * @param height The target height in pixels
+	 * @return The {@link BufferedImage}
+	 * @see #render(ModuleMatrix, int, int)
+	 */
+	public BufferedImage toBufferedImage(ModuleMatrix matrix, int width, int height)
+	{
+		BitMatrix bits = render(matrix, width, height);
+		int outputWidth = bits.getWidth();
+		int outputHeight = bits.getHeight();
+
+		BufferedImage image = new BufferedImage(outputWidth, outputHeight, BufferedImage.TYPE_BYTE_BINARY);
+		/* Eight pixels per byte, the leftmost one in the highest bit. 0 is black, so start with white and clear the dark modules. */
+		byte[] data = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+		int stride = (outputWidth + 7) / 8;
+		Arrays.fill(data, (byte) 0xFF);
+
+		BitArray row = new BitArray(outputWidth);
+		BitArray previous = new BitArray(outputWidth);
+
+		for (int y = 0; y < outputHeight; y++)
+		{
+			row = bits.getRow(y, row);
+			int offset = y * stride;
+
+			/* Most rows are the same as the one above, especially for linear codes */
+			if (y > 0 && row.equals(previous))
+			{
+				System.arraycopy(data, offset - stride, data, offset, stride);
+				continue;
+			}
+
+			int x = row.getNextSet(0);
+			while (x < outputWidth)
+			{
+				int end = row.getNextUnset(x);
+				for (; x < end; x++)
+					data[offset + (x >> 3)] &= ~(0x80 >>> (x & 7));
+				x = row.getNextSet(end);
+			}
+
+			BitArray swap = previous;
+			previous = row;
+			row = swap;
+		}
+
+		return image;
+	}
+
+	/**
+	 * Returns the (cached) {@link BufferedImage} in the size used for exporting and saving. The returned image is shared and must not be
+	 * modified.
+	 *
+	 * @param text   The barcode text
+	 * @param format The {@link BarcodeFormat}
+	 * @return The {@link BufferedImage}
+	 * @throws WriterException          Thrown if ZXing fails to encode the text
+	 * @throws IllegalArgumentException Thrown if the text isn't valid for the {@link BarcodeFormat}
+	 */
+	public BufferedImage toExportImage(String text, BarcodeFormat format) throws WriterException
+	{
+		return getImage(text, format, EXPORT_WIDTH, getExportHeight(format));
+	}
+}
@@ -0,0 +1,230 @@
+/*
+ *  Copyright 2017 Information and Computational Sciences,
+ *  The James Hutton Institute.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package jhi.humbug.render;
+
+import com.google.zxing.*;
+
+import java.nio.charset.*;
+
+/**
+ * {@link BarcodeValidator} checks barcode texts against the charset, length and check digit rules of each {@link BarcodeFormat} without
+ * encoding them. The rules follow the ZXing writers used by {@link BarcodeRenderer}, so a text that passes here can be encoded. Checking first
+ * avoids throwing (and filling the stack trace of) an exception for every invalid text while typing or importing.
+ *
+ * @author Sebastian Raubach
+ */
+public final class BarcodeValidator
+{
+	/** Code 128 and Code 39 can't hold more than this many characters */
+	private static final int MAX_LINEAR_LENGTH = 80;
+
+	/** The characters Code 39 can encode directly, everything else needs the extended mode */
+	private static final String CODE_39_ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ-. *$/+%";
+
+	/** The characters of the alphanumeric mode of QR codes */
+	private static final String QR_ALPHANUMERIC = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ $%*+-./:";
+
+	/** The capacity of a version 40 QR code at error correction level L per mode */
+	private static final int QR_MAX_NUMERIC      = 7089;
+	private static final int QR_MAX_ALPHANUMERIC = 4296;
+	/** The capacity in byte mode, minus the ECI header that ZXing adds for UTF-8 */
+	private static final int QR_MAX_BYTES        = 2952;
+
+	/* Code 128 function characters */
+	private static final char FNC_1 = '\u00f1';
+	private static final char FNC_4 = '\u00f4';
+
+	private BarcodeValidator()
+	{
+	}
+
+	/**
+	 * Checks whether the given text can be encoded in the given {@link BarcodeFormat}
+	 *
+	 * @param text   The barcode text
+	 * @param format The {@link BarcodeFormat}
+	 * @return The error message describing the problem or <code>null</code> if the text is valid
+	 */
+	public static String validate(String text, BarcodeFormat format)
+	{
+		if (text == null)
+			text = "";
+
+		if (format == null)
+			return "Unsupported barcode format: null";
+
+		switch (format)
+		{
+			case CODE_128:
+				return validateCode128(text);
+			case CODE_39:
+				return validateCode39(text);
+			case EAN_13:
+				return validateUpcEan(text, 12, "12 or 13");
+			case EAN_8:
+				return validateUpcEan(text, 7, "7 or 8");
+			case UPC_A:
+				return validateUpcEan(text, 11, "11 or 12");
+			case QR_CODE:
+				return validateQrCode(text);
+			default:
+				return "Unsupported barcode format: " + format;
+		}
+	}
+
+	/**
+	 * Returns <code>true</code> if the given text can be encoded in the given {@link BarcodeFormat}
+	 *
+	 * @param text   The barcode text
+	 * @param format The {@link BarcodeFormat}
+	 * @return <code>true</code> if the given text can be encoded in the given {@link BarcodeFormat}
+	 * @see #validate(String, BarcodeFormat)
+	 */
+	public static boolean isValid(String text, BarcodeFormat format)
+	{
+		return validate(text, format) == null;
+	}
+
+	private static String validateCode128(String text)
+	{
+		int length = text.length();
+
+		if (length < 1 || length > MAX_LINEAR_LENGTH)
+			return "Contents length should be between 1 and " + MAX_LINEAR_LENGTH + " characters, but got " + length;
+
+		for (int i = 0; i < length; i++)
+		{
+			char c = text.charAt(i);
+
+			/* ASCII plus the function characters */
+			if (c > 127 && (c < FNC_1 || c > FNC_4))
+				return "Bad character in input: " + c;
+		}
+
+		return null;
+	}
+
+	private static String validateCode39(String text)
+	{
+		int length = text.length();
+
+		if (length < 1)
+			return "Found empty contents";
+		if (length > MAX_LINEAR_LENGTH)
+			return "Requested contents should be less than " + MAX_LINEAR_LENGTH + " digits long, but got " + length;
+
+		boolean extended = false;
+		int extendedLength = 0;
+
+		for (int i = 0; i < length; i++)
+		{
+			char c = text.charAt(i);
+
+			if (c > 127)
+				return "Requested content contains a non-encodable character: '" + c + "'";
+
+			if (CODE_39_ALPHABET.indexOf(c) < 0)
+				extended = true;
+
+			/* In extended mode, everything but digits, upper case letters, space, dash and dot take two characters */
+			extendedLength += ((c >= '0' && c <= '9') || (c >= 'A' && c <= 'Z') || c == ' ' || c == '-' || c == '.') ? 1 : 2;
+		}
+
+		if (extended && extendedLength > MAX_LINEAR_LENGTH)
+			return "Requested contents should be less than " + MAX_LINEAR_LENGTH + " digits long, but got " + extendedLength + " (extended full ASCII mode)";
+
+		return null;
+	}
+
+	/**
+	 * Checks EAN-13, EAN-8 and UPC-A texts. Without the check digit, ZXing calculates it, otherwise it has to be correct.
+	 *
+	 * @param text    The barcode text
+	 * @param digits  The number of digits without the check digit
+	 * @param lengths The allowed lengths for the error message
+	 * @return The error message or <code>null</code> if the text is valid
+	 */
+	private static String validateUpcEan(String text, int digits, String lengths)
+	{
+		int length = text.length();
+
+		if (length != digits && length != digits + 1)
+			return "Requested contents should be " + lengths + " digits long, but got " + length;
+
+		for (int i = 0; i < length; i++)
+		{
+			char c = text.charAt(i);
+
+			if (c < '0' || c > '9')
+				return "Contents should only contain digits, but got '" + c + "'";
+		}
+
+		if (length == digits + 1 && getCheckDigit(text, digits) != text.charAt(digits) - '0')
+			return "Contents do not pass checksum";
+
+		return null;
+	}
+
+	/**
+	 * Calculates the UPC/EAN check digit of the first <code>digits</code> digits of the given text
+	 *
+	 * @param text   The barcode text (digits only)
+	 * @param digits The number of digits to use
+	 * @return The check digit
+	 */
+	private static int getCheckDigit(String text, int digits)
+	{
+		int sum = 0;
+
+		/* Starting from the right, every other digit is weighted by three */
+		for (int i = digits - 1, weight = 3; i >= 0; i--, weight = 4 - weight)
+			sum += weight * (text.charAt(i) - '0');
+
+		return (10 - sum % 10) % 10;
+	}
+
+	private static String validateQrCode(String text)
+	{
+		int length = text.length();
+
+		if (length < 1)
+			return "Found empty contents";
+
+		boolean numeric = true;
+		boolean alphanumeric = true;
+
+		for (int i = 0; i < length && alphanumeric; i++)
+		{
+			char c = text.charAt(i);
+
+			numeric &= c >= '0' && c <= '9';
+			alphanumeric = QR_ALPHANUMERIC.indexOf(c) >= 0;
+		}
+
+		boolean tooBig;
+
+		if (numeric)
+			tooBig = length > QR_MAX_NUMERIC;
+		else if (alphanumeric)
+			tooBig = length > QR_MAX_ALPHANUMERIC;
+		else
+			tooBig = length > QR_MAX_BYTES || (length > QR_MAX_BYTES / 3 && text.getBytes(StandardCharsets.UTF_8).length > QR_MAX_BYTES); /* At most 3 bytes per char */
+
+		return tooBig ? "Data too big" : null;
+	}
+}
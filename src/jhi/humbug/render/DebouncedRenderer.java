@@ -0,0 +1,145 @@
+/*
+ *  Copyright 2017 Information and Computational Sciences,
+ *  The James Hutton Institute.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package jhi.humbug.render;
+
+import com.google.zxing.*;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * {@link DebouncedRenderer} encodes barcodes on a shared pool of background threads. Each owner (e.g. a row in the GUI) uses its own instance.
+ * Every call to {@link #submit(String, BarcodeFormat, long, Callback)} supersedes the previous one: a pending request is cancelled
+ * and results of older requests can be recognized via {@link #isCurrent(long)} and dropped.
+ *
+ * @author Sebastian Raubach
+ */
+public class DebouncedRenderer
+{
+	/** The delay in milliseconds used while the user is typing */
+	public static final long DEBOUNCE_DELAY = 150;
+
+	private static final ScheduledThreadPoolExecutor EXECUTOR;
+
+	static
+	{
+		AtomicInteger counter = new AtomicInteger();
+		EXECUTOR = new ScheduledThreadPoolExecutor(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), r ->
+		{
+			Thread thread = new Thread(r, "humbug-render-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		EXECUTOR.setRemoveOnCancelPolicy(true);
+	}
+
+	private final AtomicLong generation = new AtomicLong();
+	private Future<?> pending;
+
+	/**
+	 * Encodes the given barcode in the background after the given delay. Any pending request of this instance is cancelled.
+	 *
+	 * @param text     The barcode text
+	 * @param format   The {@link BarcodeFormat}
+	 * @param delay    The delay in milliseconds before rendering starts
+	 * @param callback The {@link Callback} to notify. It's called on the background thread.
+	 * @return The generation of this request
+	 */
+	public synchronized long submit(String text, BarcodeFormat format, long delay, Callback callback)
+	{
+		long current = generation.incrementAndGet();
+
+		if (pending != null)
+			pending.cancel(false);
+
+		pending = EXECUTOR.schedule(() ->
+		{
+			/* Don't even start if we've been superseded in the meantime */
+			if (!isCurrent(current))
+				return;
+
+			ModuleMatrix modules;
+			try
+			{
+				modules = BarcodeRenderer.getInstance().getModules(text, format);
+			}
+			catch (IllegalArgumentException | WriterException e)
+			{
+				if (isCurrent(current))
+					callback.onFailed(current, e);
+				return;
+			}
+
+			if (isCurrent(current))
+				callback.onRendered(current, modules);
+		}, delay, TimeUnit.MILLISECONDS);
+
+		return current;
+	}
+
+	/**
+	 * Cancels the pending request and invalidates all results that are still in flight. The returned generation can be used by callers that
+	 * render themselves, but still want to be superseded by later requests.
+	 *
+	 * @return The new generation
+	 */
+	public synchronized long cancel()
+	{
+		long current = generation.incrementAndGet();
+
+		if (pending != null)
+			pending.cancel(false);
+
+		pending = null;
+
+		return current;
+	}
+
+	/**
+	 * Returns <code>true</code> if the given generation belongs to the latest request
+	 *
+	 * @param generation The generation returned by {@link #submit(String, BarcodeFormat, long, Callback)}
+	 * @return <code>true</code> if the given generation belongs to the latest request
+	 */
+	public boolean isCurrent(long generation)
+	{
+		return this.generation.get() == generation;
+	}
+
+	/**
+	 * {@link Callback} is notified once a request has been rendered
+	 */
+	public interface Callback
+	{
+		/**
+		 * Called when the barcode has been encoded successfully. Rasterizing the {@link ModuleMatrix} to the requested size is up to the callback.
+		 *
+		 * @param generation The generation of the request
+		 * @param modules    The (shared) {@link ModuleMatrix}
+		 */
+		void onRendered(long generation, ModuleMatrix modules);
+
+		/**
+		 * Called when the barcode text couldn't be encoded
+		 *
+		 * @param generation The generation of the request
+		 * @param e          The {@link Exception} describing the problem
+		 */
+		void onFailed(long generation, Exception e);
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ *  Copyright 2017 Information and Computational Sciences,
+ *  The James Hutton Institute.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package jhi.humbug.render;
+
+import com.google.zxing.*;
+import com.google.zxing.common.*;
+
+/**
+ * {@link ModuleMatrix} is the compact, size independent result of encoding a barcode. It holds exactly one bit per module (a single row for
+ * linear codes) and is immutable, so it can be shared between threads.
+ *
+ * @author Sebastian Raubach
+ */
+public class ModuleMatrix
+{
+	private final BarcodeFormat format;
+	private final BitMatrix     modules;
+
+	ModuleMatrix(BarcodeFormat format, BitMatrix modules)
+	{
+		this.format = format;
+		this.modules = modules;
+	}
+
+	/**
+	 * Returns the {@link BarcodeFormat} this matrix has been encoded with
+	 *
+	 * @return The {@link BarcodeFormat} this matrix has been encoded with
+	 */
+	public BarcodeFormat getFormat()
+	{
+		return format;
+	}
+
+	/**
+	 * Returns the number of modules in horizontal direction
+	 *
+	 * @return The number of modules in horizontal direction
+	 */
+	public int getWidth()
+	{
+		return modules.getWidth();
+	}
+
+	/**
+	 * Returns the number of modules in vertical direction. This is <code>1</code> for linear codes.
+	 *
+	 * @return The number of modules in vertical direction
+	 */
+	public int getHeight()
+	{
+		return modules.getHeight();
+	}
+
+	/**
+	 * Returns <code>true</code> if this is a linear (1D) code, i.e. the bars have to be stretched vertically
+	 *
+	 * @return <code>true</code> if this is a linear (1D) code
+	 */
+	public boolean isLinear()
+	{
+		return format != BarcodeFormat.QR_CODE;
+	}
+
+	/**
+	 * Returns <code>true</code> if the module at the given position is dark
+	 *
+	 * @param x The column
+	 * @param y The row
+	 * @return <code>true</code> if the module at the given position is dark
+	 */
+	public boolean get(int x, int y)
+	{
+		return modules.get(x, y);
+	}
+
+	/**
+	 * Returns a copy of the given module row
+	 *
+	 * @param y   The row
+	 * @param row An optional pre-allocated {@link BitArray} to reuse
+	 * @return The module row
+	 */
+	public BitArray getRow(int y, BitArray row)
+	{
+		return modules.getRow(y, row);
+	}
+}
@@ -0,0 +1,204 @@
+/*
+ *  Copyright 2017 Information and Computational Sciences,
+ *  The James Hutton Institute.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package jhi.humbug.render;
+
+import java.lang.ref.*;
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * {@link RenderCache} is a bounded, thread-safe LRU cache for render results. Every entry has a weight (roughly its size in bytes) and the
+ * strongly referenced part of the cache never exceeds the given maximum weight. Entries that fall out of the LRU are kept as {@link
+ * SoftReference}s, so they can still be found again until the garbage collector needs the memory.
+ * <p>
+ * Cached values are shared between all callers and must not be modified.
+ *
+ * @param <V> The type of the cached values
+ * @author Sebastian Raubach
+ */
+public class RenderCache<V>
+{
+	private final long                         maxWeight;
+	private final ToLongFunction<V>            weigher;
+	private final LinkedHashMap<RenderKey, V>  strong = new LinkedHashMap<>(256, 0.75f, true);
+	private final Map<RenderKey, SoftValue<V>> soft   = new HashMap<>();
+	private final ReferenceQueue<V>            queue  = new ReferenceQueue<>();
+
+	private long weight = 0;
+
+	/**
+	 * Creates a new {@link RenderCache}
+	 *
+	 * @param maxWeight The maximal total weight of the strongly referenced entries
+	 * @param weigher   Returns the weight of a value
+	 */
+	public RenderCache(long maxWeight, ToLongFunction<V> weigher)
+	{
+		this.maxWeight = maxWeight;
+		this.weigher = weigher;
+	}
+
+	/**
+	 * Returns the cached value for the given {@link RenderKey} or <code>null</code> if there is none
+	 *
+	 * @param key The {@link RenderKey}
+	 * @return The cached value or <code>null</code>
+	 */
+	public synchronized V get(RenderKey key)
+	{
+		V value = strong.get(key);
+
+		if (value != null)
+			return value;
+
+		purge();
+
+		/* Try the soft references and promote the value back into the LRU */
+		SoftValue<V> ref = soft.remove(key);
+		if (ref != null)
+		{
+			value = ref.get();
+
+			if (value != null)
+				putStrong(key, value);
+		}
+
+		return value;
+	}
+
+	/**
+	 * Adds the given value to the cache
+	 *
+	 * @param key   The {@link RenderKey}
+	 * @param value The value
+	 */
+	public synchronized void put(RenderKey key, V value)
+	{
+		purge();
+		soft.remove(key);
+
+		V old = strong.remove(key);
+		if (old != null)
+			weight -= weigher.applyAsLong(old);
+
+		putStrong(key, value);
+	}
+
+	/**
+	 * Returns the cached value for the given {@link RenderKey} or computes and caches it if there is none
+	 *
+	 * @param key      The {@link RenderKey}
+	 * @param function Creates the value if it isn't cached yet
+	 * @param <E>      The type of {@link Exception} the function may throw
+	 * @return The cached or newly created value
+	 * @throws E Thrown if the function fails
+	 */
+	public <E extends Exception> V get(RenderKey key, Loader<V, E> function) throws E
+	{
+		V value = get(key);
+
+		if (value == null)
+		{
+			/* Compute outside the lock, so that other threads don't have to wait for us */
+			value = function.load(key);
+
+			if (value != null)
+				put(key, value);
+		}
+
+		return value;
+	}
+
+	/**
+	 * Removes all entries from the cache
+	 */
+	public synchronized void clear()
+	{
+		strong.clear();
+		soft.clear();
+		weight = 0;
+
+		while (queue.poll() != null)
+		{
+			/* Just drain the queue */
+		}
+	}
+
+	/**
+	 * Returns the number of strongly referenced entries
+	 *
+	 * @return The number of strongly referenced entries
+	 */
+	public synchronized int size()
+	{
+		return strong.size();
+	}
+
+	private void putStrong(RenderKey key, V value)
+	{
+		strong.put(key, value);
+		weight += weigher.applyAsLong(value);
+
+		/* Demote the least recently used entries to soft references */
+		Iterator<Map.Entry<RenderKey, V>> it = strong.entrySet().iterator();
+		while (weight > maxWeight && strong.size() > 1 && it.hasNext())
+		{
+			Map.Entry<RenderKey, V> eldest = it.next();
+			it.remove();
+			weight -= weigher.applyAsLong(eldest.getValue());
+			soft.put(eldest.getKey(), new SoftValue<>(eldest.getKey(), eldest.getValue(), queue));
+		}
+	}
+
+	/**
+	 * Removes all soft references that have been cleared by the garbage collector
+	 */
+	@SuppressWarnings("unchecked")
+	private void purge()
+	{
+		SoftValue<V> ref;
+		while ((ref = (SoftValue<V>) queue.poll()) != null)
+		{
+			if (soft.get(ref.key) == ref)
+				soft.remove(ref.key);
+		}
+	}
+
+	/**
+	 * Computes a value for the {@link RenderCache}
+	 *
+	 * @param <V> The type of the value
+	 * @param <E> The type of {@link Exception} that may be thrown
+	 */
+	@FunctionalInterface
+	public interface Loader<V, E extends Exception>
+	{
+		V load(RenderKey key) throws E;
+	}
+
+	private static class SoftValue<V> extends SoftReference<V>
+	{
+		private final RenderKey key;
+
+		SoftValue(RenderKey key, V value, ReferenceQueue<V> queue)
+		{
+			super(value, queue);
+			this.key = key;
+		}
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ *  Copyright 2017 Information and Computational Sciences,
+ *  The James Hutton Institute.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package jhi.humbug.render;
+
+import com.google.zxing.*;
+
+import java.util.*;
+
+/**
+ * {@link RenderKey} identifies a rendered barcode by its text, {@link BarcodeFormat} and pixel size. A size of <code>0x0</code> refers to the
+ * {@link ModuleMatrix} itself.
+ *
+ * @author Sebastian Raubach
+ */
+public final class RenderKey
+{
+	private final String        text;
+	private final BarcodeFormat format;
+	private final int           width;
+	private final int           height;
+	private final int           hash;
+
+	public RenderKey(String text, BarcodeFormat format)
+	{
+		this(text, format, 0, 0);
+	}
+
+	public RenderKey(String text, BarcodeFormat format, int width, int height)
+	{
+		this.text = text;
+		this.format = format;
+		this.width = width;
+		this.height = height;
+		this.hash = Objects.hash(text, format, width, height);
+	}
+
+	public String getText()
+	{
+		return text;
+	}
+
+	public BarcodeFormat getFormat()
+	{
+		return format;
+	}
+
+	public int getWidth()
+	{
+		return width;
+	}
+
+	public int getHeight()
+	{
+		return height;
+	}
+
+	@Override
+	public boolean equals(Object o)
+	{
+		if (this == o)
+			return true;
+		if (o == null || getClass() != o.getClass())
+			return false;
+
+		RenderKey that = (RenderKey) o;
+		return width == that.width && height == that.height && format == that.format && Objects.equals(text, that.text);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return hash;
+	}
+
+	@Override
+	public String toString()
+	{
+		return format + ":" + text + "@" + width + "x" + height;
+	}
+}
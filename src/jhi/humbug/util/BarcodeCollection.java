@@ -25,7 +25,7 @@ import java.io.*;
 import java.net.*;
 import java.util.*;
 
-import jhi.humbug.gui.widget.*;
+import jhi.humbug.model.*;
 
 /**
  * @author Sebastian Raubach
@@ -36,11 +36,11 @@ public class BarcodeCollection
 	@ElementList(name = "item", inline = true, required = false)
 	private List<BarcodeItem> items = new ArrayList<>();
 
-	public BarcodeItem add(BarcodeRow row)
+	public BarcodeItem add(BarcodeEntry entry)
 	{
-		String barcode = row.getBarcode();
-		File image = row.getAssociatedImage();
-		BarcodeFormat format = row.getBarcodeFormat();
+		String barcode = entry.getBarcode();
+		File image = entry.getAssociatedImage();
+		BarcodeFormat format = entry.getFormat();
 
 		BarcodeItem item = new BarcodeItem(barcode, image, format);
 		items.add(item);
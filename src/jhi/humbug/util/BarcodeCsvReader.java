@@ -0,0 +1,363 @@
+/*
+ *  Copyright 2017 Information and Computational Sciences,
+ *  The James Hutton Institute.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package jhi.humbug.util;
+
+import com.google.zxing.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+
+import jhi.humbug.model.*;
+
+/**
+ * {@link BarcodeCsvReader} reads the rows of a CSV or TSV file one at a time. The columns are the barcode text, the {@link BarcodeFormat}
+ * and the path of the associated image, only the first one is required. Empty formats fall back to the default format and relative image
+ * paths are resolved against the folder of the file.
+ * <p>
+ * The file is memory-mapped in windows and tokenized on the raw bytes, only the fields themselves are decoded into strings. The delimiter
+ * (tab, semicolon or comma) is detected from the first row, which is skipped if it's a header, i.e. if its first column is named like the
+ * barcode text (see {@link #HEADER_NAMES}) or its format column isn't a format. Fields can be quoted as described in RFC 4180.
+ *
+ * @author Sebastian Raubach
+ */
+public class BarcodeCsvReader implements Closeable
+{
+	/** The size of the mapped windows of the file */
+	private static final long WINDOW = 64L * 1024 * 1024;
+
+	private static final byte[] BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+	/** The names of the barcode text column that mark the first row as a header, ignoring case */
+	private static final Set<String> HEADER_NAMES = new HashSet<>(Arrays.asList("barcode", BarcodeXmlReader.ELEMENT_NAME, "text"));
+
+	private final FileChannel   channel;
+	private final long          size;
+	private final File          folder;
+	private final BarcodeFormat defaultFormat;
+
+	private MappedByteBuffer buffer;
+	private long             bufferStart;
+	private long             position;
+	private byte             delimiter;
+	private int              line;
+
+	private final List<String> fields = new ArrayList<>(3);
+	private       byte[]       field  = new byte[256];
+	private       int          length;
+
+	/**
+	 * Creates a new {@link BarcodeCsvReader} for the given {@link File}
+	 *
+	 * @param file          The CSV or TSV {@link File}
+	 * @param defaultFormat The {@link BarcodeFormat} of rows without a format
+	 * @throws IOException Thrown if the file can't be read
+	 */
+	public BarcodeCsvReader(File file, BarcodeFormat defaultFormat) throws IOException
+	{
+		this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		this.size = channel.size();
+		this.folder = file.getAbsoluteFile().getParentFile();
+		this.defaultFormat = defaultFormat;
+
+		try
+		{
+			if (startsWith(BOM))
+				position = BOM.length;
+
+			delimiter = detectDelimiter();
+
+			/* Skip the header */
+			long start = position;
+			if (readRecord() && !isHeader(fields))
+			{
+				position = start;
+				line = 0;
+			}
+		}
+		catch (IOException | RuntimeException e)
+		{
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Reads the next row, skipping empty ones
+	 *
+	 * @return The {@link BarcodeEntry} of the next row or <code>null</code> if there are no more rows
+	 * @throws IOException Thrown if the row can't be read or contains an unknown barcode format
+	 */
+	public BarcodeEntry next() throws IOException
+	{
+		while (readRecord())
+		{
+			if (fields.size() == 1 && fields.get(0).trim().isEmpty())
+				continue;
+
+			BarcodeFormat format = defaultFormat;
+			File image = null;
+
+			if (fields.size() > 1 && !fields.get(1).trim().isEmpty())
+			{
+				format = parseFormat(fields.get(1));
+
+				if (format == null)
+					throw new IOException("Line " + line + ": Unknown barcode format: '" + fields.get(1) + "'");
+			}
+
+			if (fields.size() > 2)
+			{
+				image = BarcodeXmlReader.toFile(fields.get(2));
+
+				if (image != null && !image.isAbsolute())
+					image = new File(folder, image.getPath());
+			}
+
+			return new BarcodeEntry(fields.get(0), format, image);
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns the number of bytes read so far
+	 *
+	 * @return The number of bytes read so far
+	 */
+	public long getPosition()
+	{
+		return position;
+	}
+
+	/**
+	 * Returns the delimiter detected from the first row
+	 *
+	 * @return The delimiter
+	 */
+	public char getDelimiter()
+	{
+		return (char) delimiter;
+	}
+
+	/**
+	 * Reads the next record into {@link #fields}. Quoted fields may contain delimiters, line breaks and doubled quotes.
+	 *
+	 * @return <code>false</code> if the end of the file has been reached
+	 */
+	private boolean readRecord() throws IOException
+	{
+		fields.clear();
+
+		if (position >= size)
+			return false;
+
+		int start = ++line;
+		length = 0;
+		boolean quoted = false;
+		boolean inQuotes = false;
+
+		while (true)
+		{
+			int b = read();
+
+			if (inQuotes)
+			{
+				if (b == -1)
+					throw new IOException("Line " + start + ": Unterminated quoted field");
+
+				if (b == '"')
+				{
+					if (peek() == '"')
+					{
+						position++;
+						append(b);
+					}
+					else
+					{
+						inQuotes = false;
+					}
+				}
+				else
+				{
+					if (b == '\n')
+						line++;
+
+					append(b);
+				}
+			}
+			else if (b == '"' && length == 0 && !quoted)
+			{
+				inQuotes = quoted = true;
+			}
+			else if (b == delimiter)
+			{
+				endField();
+				quoted = false;
+			}
+			else if (b == '\r' && peek() == '\n')
+			{
+				/* The line feed ends the record */
+			}
+			else if (b == '\n' || b == '\r' || b == -1)
+			{
+				endField();
+				return true;
+			}
+			else
+			{
+				append(b);
+			}
+		}
+	}
+
+	private void append(int b)
+	{
+		if (length == field.length)
+			field = Arrays.copyOf(field, length * 2);
+
+		field[length++] = (byte) b;
+	}
+
+	private void endField()
+	{
+		fields.add(new String(field, 0, length, StandardCharsets.UTF_8));
+		length = 0;
+	}
+
+	/**
+	 * Reads the byte at the current position and advances it
+	 *
+	 * @return The byte or -1 at the end of the file
+	 */
+	private int read() throws IOException
+	{
+		int b = peek();
+
+		if (b != -1)
+			position++;
+
+		return b;
+	}
+
+	/**
+	 * Returns the byte at the current position without advancing it, mapping the next window if necessary
+	 *
+	 * @return The byte or -1 at the end of the file
+	 */
+	private int peek() throws IOException
+	{
+		if (position >= size)
+			return -1;
+
+		if (buffer == null || position < bufferStart || position >= bufferStart + buffer.limit())
+		{
+			bufferStart = position;
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, bufferStart, Math.min(WINDOW, size - bufferStart));
+		}
+
+		return buffer.get((int) (position - bufferStart)) & 0xFF;
+	}
+
+	private boolean startsWith(byte[] prefix) throws IOException
+	{
+		if (size < prefix.length)
+			return false;
+
+		ByteBuffer start = ByteBuffer.allocate(prefix.length);
+		channel.read(start, 0);
+
+		return Arrays.equals(start.array(), prefix);
+	}
+
+	/**
+	 * Detects the delimiter by counting tabs, semicolons and commas outside of quotes in the first row. Tabs win over the others, commas are the
+	 * default.
+	 */
+	private byte detectDelimiter() throws IOException
+	{
+		long start = position;
+		int semicolons = 0;
+		int commas = 0;
+		boolean inQuotes = false;
+
+		try
+		{
+			for (int b = read(); b != -1; b = read())
+			{
+				if (b == '"')
+					inQuotes = !inQuotes;
+				else if (inQuotes)
+					continue;
+				else if (b == '\t')
+					return '\t';
+				else if (b == ';')
+					semicolons++;
+				else if (b == ',')
+					commas++;
+				else if (b == '\n' || b == '\r')
+					break;
+			}
+
+			return semicolons > commas ? (byte) ';' : (byte) ',';
+		}
+		finally
+		{
+			position = start;
+		}
+	}
+
+	/**
+	 * Checks whether the given fields of the first row are a header. That's the case if the first field is one of the {@link #HEADER_NAMES}, so
+	 * that files with a single column can have a header too, or if the format field isn't empty and not a format.
+	 */
+	private static boolean isHeader(List<String> fields)
+	{
+		if (HEADER_NAMES.contains(fields.get(0).trim().toLowerCase(Locale.ENGLISH)))
+			return true;
+
+		return fields.size() > 1 && !fields.get(1).trim().isEmpty() && parseFormat(fields.get(1)) == null;
+	}
+
+	/**
+	 * Parses the given {@link BarcodeFormat} name ignoring case
+	 *
+	 * @param format The {@link BarcodeFormat} name
+	 * @return The {@link BarcodeFormat} or <code>null</code> if there is no such format
+	 */
+	private static BarcodeFormat parseFormat(String format)
+	{
+		try
+		{
+			return BarcodeFormat.valueOf(format.trim().toUpperCase(Locale.ENGLISH));
+		}
+		catch (IllegalArgumentException e)
+		{
+			return null;
+		}
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		channel.close();
+	}
+}
@@ -0,0 +1,236 @@
+/*
+ *  Copyright 2017 Information and Computational Sciences,
+ *  The James Hutton Institute.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package jhi.humbug.util;
+
+import org.apache.xmlgraphics.io.*;
+
+import java.io.*;
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+/**
+ * {@link BarcodeImageResolver} is a {@link ResourceResolver} that serves images from memory to FOP. Each image gets a URI with the {@link
+ * #SCHEME} scheme, see {@link #add(Future)}. Every instance uses its own URIs, so images cached by FOP are never mixed up between exports.
+ * <p>
+ * Images can be added while they are still being encoded, FOP then waits for the image it asks for. As FOP asks for the images in document
+ * order, the encoding and the layout run side by side. FOP reads every image only once, so an image is dropped as soon as it has been
+ * handed over.
+ *
+ * @author Sebastian Raubach
+ */
+public class BarcodeImageResolver implements ResourceResolver
+{
+	public static final String SCHEME = "humbug-image";
+
+	private static final AtomicLong COUNTER = new AtomicLong();
+
+	private final String               prefix = SCHEME + ":" + COUNTER.incrementAndGet() + "/";
+	private final List<Future<byte[]>> images = new ArrayList<>();
+	private final IntConsumer          progress;
+	private       int                  delivered;
+	private       IOException          error;
+
+	public BarcodeImageResolver()
+	{
+		this(null);
+	}
+
+	/**
+	 * Creates a new {@link BarcodeImageResolver}
+	 *
+	 * @param progress Called on the FOP thread with the number of images handed to FOP for the first time. Can be <code>null</code>.
+	 */
+	public BarcodeImageResolver(IntConsumer progress)
+	{
+		this.progress = progress;
+	}
+
+	/**
+	 * Adds the given image
+	 *
+	 * @param image The encoded image, e.g. a PNG
+	 * @return The URI of the image
+	 */
+	public String add(byte[] image)
+	{
+		return add(CompletableFuture.completedFuture(image));
+	}
+
+	/**
+	 * Adds the given image, which may still be being encoded
+	 *
+	 * @param image The {@link Future} of the encoded image, e.g. a PNG
+	 * @return The URI of the image
+	 */
+	public synchronized String add(Future<byte[]> image)
+	{
+		images.add(image);
+
+		return getUri(images.size() - 1);
+	}
+
+	/**
+	 * Returns the URI of the image with the given index
+	 *
+	 * @param index The index of the image, i.e. the number of images added before it
+	 * @return The URI of the image
+	 */
+	public String getUri(int index)
+	{
+		return prefix + index;
+	}
+
+	/**
+	 * Checks whether the given URI belongs to an image of this {@link BarcodeImageResolver}
+	 *
+	 * @param uri The URI
+	 * @return <code>true</code> if the URI belongs to an image of this {@link BarcodeImageResolver}
+	 */
+	public boolean handles(URI uri)
+	{
+		return uri.toString().startsWith(prefix);
+	}
+
+	@Override
+	public Resource getResource(URI uri) throws IOException
+	{
+		String text = uri.toString();
+		int index = -1;
+		Future<byte[]> image = null;
+
+		if (text.startsWith(prefix))
+		{
+			try
+			{
+				index = Integer.parseInt(text.substring(prefix.length()));
+
+				synchronized (this)
+				{
+					image = images.get(index);
+				}
+			}
+			catch (NumberFormatException | IndexOutOfBoundsException e)
+			{
+				/* Fall through */
+			}
+		}
+
+		if (image == null)
+		{
+			FileNotFoundException e = new FileNotFoundException(text);
+
+			/* FOP only logs missing images, remember it for checkImages() */
+			if (index != -1)
+				setError(e);
+
+			throw e;
+		}
+
+		byte[] data;
+		try
+		{
+			data = image.get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException(text);
+		}
+		catch (ExecutionException e)
+		{
+			throw new IOException("Failed to encode " + text, e.getCause());
+		}
+
+		synchronized (this)
+		{
+			images.set(index, null);
+		}
+
+		reportProgress(index);
+
+		return new Resource(new ByteArrayInputStream(data));
+	}
+
+	/**
+	 * Waits for all images to be encoded. FOP only logs images that can't be loaded, use this to find out whether all images made it.
+	 *
+	 * @throws IOException Thrown if an image couldn't be encoded or was requested again after it had been handed over
+	 */
+	public void checkImages() throws IOException
+	{
+		List<Future<byte[]>> copy;
+
+		synchronized (this)
+		{
+			if (error != null)
+				throw error;
+
+			copy = new ArrayList<>(images);
+		}
+
+		for (int i = 0; i < copy.size(); i++)
+		{
+			/* Images that have been handed over are fine */
+			if (copy.get(i) == null)
+				continue;
+
+			try
+			{
+				copy.get(i).get();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException(getUri(i));
+			}
+			catch (ExecutionException e)
+			{
+				throw new IOException(e.getCause().getLocalizedMessage(), e.getCause());
+			}
+		}
+	}
+
+	private synchronized void setError(IOException e)
+	{
+		if (error == null)
+			error = e;
+	}
+
+	private void reportProgress(int index)
+	{
+		int count;
+
+		synchronized (this)
+		{
+			count = index + 1 - delivered;
+			delivered = Math.max(delivered, index + 1);
+		}
+
+		if (progress != null && count > 0)
+			progress.accept(count);
+	}
+
+	@Override
+	public OutputStream getOutputStream(URI uri) throws IOException
+	{
+		throw new IOException("Images can't be written: " + uri);
+	}
+}
@@ -0,0 +1,184 @@
+/*
+ *  Copyright 2017 Information and Computational Sciences,
+ *  The James Hutton Institute.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package jhi.humbug.util;
+
+import org.xml.sax.*;
+import org.xml.sax.helpers.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.function.*;
+
+import jhi.humbug.model.*;
+
+import static jhi.humbug.util.BarcodeXmlReader.*;
+
+/**
+ * {@link BarcodeSaxReader} is an {@link XMLReader} that generates the SAX events of a {@link BarcodeCollection} XML document from {@link
+ * BarcodeEntry} objects. Use it with a {@link javax.xml.transform.sax.SAXSource} to transform the entries without writing them to a file
+ * first. The input passed to {@link #parse(InputSource)} is ignored.
+ *
+ * @author Sebastian Raubach
+ */
+public class BarcodeSaxReader implements XMLReader
+{
+	private static final String     ELEMENT_BARCODE = "barcode";
+	private static final Attributes NO_ATTRIBUTES   = new AttributesImpl();
+
+	private final Collection<BarcodeEntry> entries;
+	private final IntFunction<String>      barcodes;
+
+	private final Map<String, Boolean> features   = new HashMap<>();
+	private final Map<String, Object>  properties = new HashMap<>();
+
+	private ContentHandler contentHandler;
+	private DTDHandler     dtdHandler;
+	private EntityResolver entityResolver;
+	private ErrorHandler   errorHandler;
+
+	/**
+	 * Creates a new {@link BarcodeSaxReader}
+	 *
+	 * @param entries  The {@link BarcodeEntry} objects to generate items for
+	 * @param barcodes Returns the URI of the barcode image of the entry with the given index, used for the <code>barcode</code> element of the
+	 *                 items. Can be <code>null</code>.
+	 */
+	public BarcodeSaxReader(Collection<BarcodeEntry> entries, IntFunction<String> barcodes)
+	{
+		this.entries = entries;
+		this.barcodes = barcodes;
+	}
+
+	@Override
+	public void parse(InputSource input) throws IOException, SAXException
+	{
+		if (contentHandler == null)
+			throw new SAXException("No ContentHandler");
+
+		contentHandler.startDocument();
+		contentHandler.startElement("", ELEMENT_ROOT, ELEMENT_ROOT, NO_ATTRIBUTES);
+
+		int index = 0;
+		for (BarcodeEntry entry : entries)
+		{
+			contentHandler.startElement("", ELEMENT_ITEM, ELEMENT_ITEM, NO_ATTRIBUTES);
+
+			element(ELEMENT_NAME, entry.getBarcode());
+
+			if (entry.getAssociatedImage() != null)
+				element(ELEMENT_IMAGE, entry.getAssociatedImage().toURI().toString());
+			if (barcodes != null)
+				element(ELEMENT_BARCODE, barcodes.apply(index));
+
+			element(ELEMENT_FORMAT, entry.getFormat().name());
+
+			contentHandler.endElement("", ELEMENT_ITEM, ELEMENT_ITEM);
+			index++;
+		}
+
+		contentHandler.endElement("", ELEMENT_ROOT, ELEMENT_ROOT);
+		contentHandler.endDocument();
+	}
+
+	private void element(String name, String value) throws SAXException
+	{
+		char[] text = value == null ? new char[0] : value.toCharArray();
+
+		contentHandler.startElement("", name, name, NO_ATTRIBUTES);
+		contentHandler.characters(text, 0, text.length);
+		contentHandler.endElement("", name, name);
+	}
+
+	@Override
+	public void parse(String systemId) throws IOException, SAXException
+	{
+		parse(new InputSource(systemId));
+	}
+
+	@Override
+	public boolean getFeature(String name)
+	{
+		return features.getOrDefault(name, false);
+	}
+
+	@Override
+	public void setFeature(String name, boolean value)
+	{
+		features.put(name, value);
+	}
+
+	@Override
+	public Object getProperty(String name)
+	{
+		return properties.get(name);
+	}
+
+	@Override
+	public void setProperty(String name, Object value)
+	{
+		properties.put(name, value);
+	}
+
+	@Override
+	public void setEntityResolver(EntityResolver resolver)
+	{
+		this.entityResolver = resolver;
+	}
+
+	@Override
+	public EntityResolver getEntityResolver()
+	{
+		return entityResolver;
+	}
+
+	@Override
+	public void setDTDHandler(DTDHandler handler)
+	{
+		this.dtdHandler = handler;
+	}
+
+	@Override
+	public DTDHandler getDTDHandler()
+	{
+		return dtdHandler;
+	}
+
+	@Override
+	public void setContentHandler(ContentHandler handler)
+	{
+		this.contentHandler = handler;
+	}
+
+	@Override
+	public ContentHandler getContentHandler()
+	{
+		return contentHandler;
+	}
+
+	@Override
+	public void setErrorHandler(ErrorHandler handler)
+	{
+		this.errorHandler = handler;
+	}
+
+	@Override
+	public ErrorHandler getErrorHandler()
+	{
+		return errorHandler;
+	}
+}
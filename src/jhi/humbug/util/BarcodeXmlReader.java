@@ -0,0 +1,196 @@
+/*
+ *  Copyright 2017 Information and Computational Sciences,
+ *  The James Hutton Institute.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package jhi.humbug.util;
+
+import com.google.zxing.*;
+
+import java.io.*;
+import java.net.*;
+
+import javax.xml.stream.*;
+
+import jhi.humbug.model.*;
+
+/**
+ * {@link BarcodeXmlReader} reads the items of a {@link BarcodeCollection} XML file one at a time. Unlike reading the whole {@link
+ * BarcodeCollection}, only the current item is held in memory, so entries can be imported while the file is still being read.
+ * <p>
+ * Unknown elements are skipped, just like the non-strict {@link BarcodeCollection}.
+ *
+ * @author Sebastian Raubach
+ */
+public class BarcodeXmlReader implements Closeable
+{
+	static final String ELEMENT_ROOT   = "barcode-list";
+	static final String ELEMENT_ITEM   = "item";
+	static final String ELEMENT_NAME   = "name";
+	static final String ELEMENT_IMAGE  = "image";
+	static final String ELEMENT_FORMAT = "format";
+
+	private final XMLStreamReader reader;
+
+	/**
+	 * Creates a new {@link BarcodeXmlReader} reading from the given {@link InputStream}. The stream isn't closed by {@link #close()}.
+	 *
+	 * @param input The {@link InputStream}
+	 * @throws XMLStreamException Thrown if the document can't be read or doesn't start with a <code>barcode-list</code>
+	 */
+	public BarcodeXmlReader(InputStream input) throws XMLStreamException
+	{
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		/* The files don't need DTDs, so don't resolve anything external */
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+		reader = factory.createXMLStreamReader(input);
+		reader.nextTag();
+
+		if (!ELEMENT_ROOT.equals(reader.getLocalName()))
+			throw new XMLStreamException("Expected <" + ELEMENT_ROOT + ">, found <" + reader.getLocalName() + ">", reader.getLocation());
+	}
+
+	/**
+	 * Reads the next item
+	 *
+	 * @return The {@link BarcodeEntry} of the next item or <code>null</code> if there are no more items
+	 * @throws XMLStreamException Thrown if the item can't be read or misses its name or format
+	 */
+	public BarcodeEntry next() throws XMLStreamException
+	{
+		while (reader.hasNext())
+		{
+			int event = reader.next();
+
+			if (event == XMLStreamConstants.START_ELEMENT)
+			{
+				if (ELEMENT_ITEM.equals(reader.getLocalName()))
+					return readItem();
+				else
+					skipElement();
+			}
+			else if (event == XMLStreamConstants.END_ELEMENT)
+			{
+				/* The end of the barcode-list */
+				return null;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Reads the item the reader is currently positioned at up to its end element
+	 */
+	private BarcodeEntry readItem() throws XMLStreamException
+	{
+		String name = null;
+		String image = null;
+		String format = null;
+
+		while (reader.nextTag() == XMLStreamConstants.START_ELEMENT)
+		{
+			switch (reader.getLocalName())
+			{
+				case ELEMENT_NAME:
+					name = reader.getElementText();
+					break;
+				case ELEMENT_IMAGE:
+					image = reader.getElementText();
+					break;
+				case ELEMENT_FORMAT:
+					format = reader.getElementText();
+					break;
+				default:
+					skipElement();
+			}
+		}
+
+		if (name == null)
+			throw new XMLStreamException("Missing <" + ELEMENT_NAME + "> in <" + ELEMENT_ITEM + ">", reader.getLocation());
+		if (format == null)
+			throw new XMLStreamException("Missing <" + ELEMENT_FORMAT + "> in <" + ELEMENT_ITEM + ">", reader.getLocation());
+
+		try
+		{
+			return new BarcodeEntry(name, BarcodeFormat.valueOf(format.trim()), toFile(image));
+		}
+		catch (IllegalArgumentException e)
+		{
+			throw new XMLStreamException("Unknown barcode format: '" + format + "'", reader.getLocation(), e);
+		}
+	}
+
+	/**
+	 * Skips the element the reader is currently positioned at including all its children
+	 */
+	private void skipElement() throws XMLStreamException
+	{
+		int depth = 1;
+
+		while (depth > 0)
+		{
+			int event = reader.next();
+
+			if (event == XMLStreamConstants.START_ELEMENT)
+				depth++;
+			else if (event == XMLStreamConstants.END_ELEMENT)
+				depth--;
+		}
+	}
+
+	/**
+	 * Converts the image of an item into a {@link File}. Images are written as <code>file:</code> URIs, but plain paths are accepted as well.
+	 *
+	 * @param image The image URI or path
+	 * @return The {@link File} or <code>null</code> if there is no image
+	 */
+	static File toFile(String image)
+	{
+		if (image == null || image.trim().isEmpty())
+			return null;
+
+		image = image.trim();
+
+		if (image.startsWith("file:"))
+		{
+			try
+			{
+				return new File(new URI(image));
+			}
+			catch (URISyntaxException | IllegalArgumentException e)
+			{
+				/* Fall through and treat it as a path */
+			}
+		}
+
+		return new File(image);
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		try
+		{
+			reader.close();
+		}
+		catch (XMLStreamException e)
+		{
+			throw new IOException(e);
+		}
+	}
+}
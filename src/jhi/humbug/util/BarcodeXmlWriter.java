@@ -0,0 +1,110 @@
+/*
+ *  Copyright 2017 Information and Computational Sciences,
+ *  The James Hutton Institute.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package jhi.humbug.util;
+
+import java.io.*;
+import java.nio.charset.*;
+
+import javax.xml.stream.*;
+
+import jhi.humbug.model.*;
+
+import static jhi.humbug.util.BarcodeXmlReader.*;
+
+/**
+ * {@link BarcodeXmlWriter} writes {@link BarcodeEntry} objects as items of a {@link BarcodeCollection} XML file one at a time, without building
+ * the collection in memory first. The output can be read by both {@link BarcodeXmlReader} and {@link BarcodeCollection}.
+ *
+ * @author Sebastian Raubach
+ */
+public class BarcodeXmlWriter implements Closeable
+{
+	private static final String INDENT_ITEM    = "\n   ";
+	private static final String INDENT_ELEMENT = "\n      ";
+
+	private final XMLStreamWriter writer;
+
+	/**
+	 * Creates a new {@link BarcodeXmlWriter} writing UTF-8 to the given {@link OutputStream}. The stream should be buffered and isn't closed
+	 * by {@link #close()}.
+	 *
+	 * @param output The {@link OutputStream}
+	 * @throws XMLStreamException Thrown if the start of the document can't be written
+	 */
+	public BarcodeXmlWriter(OutputStream output) throws XMLStreamException
+	{
+		String encoding = StandardCharsets.UTF_8.name();
+
+		writer = XMLOutputFactory.newInstance().createXMLStreamWriter(output, encoding);
+		writer.writeStartDocument(encoding, "1.0");
+		writer.writeCharacters("\n");
+		writer.writeStartElement(ELEMENT_ROOT);
+	}
+
+	/**
+	 * Writes the given {@link BarcodeEntry} as an item
+	 *
+	 * @param entry The {@link BarcodeEntry}
+	 * @throws XMLStreamException Thrown if the item can't be written
+	 */
+	public void write(BarcodeEntry entry) throws XMLStreamException
+	{
+		writer.writeCharacters(INDENT_ITEM);
+		writer.writeStartElement(ELEMENT_ITEM);
+
+		writeElement(ELEMENT_NAME, entry.getBarcode());
+
+		if (entry.getAssociatedImage() != null)
+			writeElement(ELEMENT_IMAGE, entry.getAssociatedImage().toURI().toString());
+
+		writeElement(ELEMENT_FORMAT, entry.getFormat().name());
+
+		writer.writeCharacters(INDENT_ITEM);
+		writer.writeEndElement();
+	}
+
+	private void writeElement(String name, String value) throws XMLStreamException
+	{
+		writer.writeCharacters(INDENT_ELEMENT);
+		writer.writeStartElement(name);
+		writer.writeCharacters(value == null ? "" : value);
+		writer.writeEndElement();
+	}
+
+	/**
+	 * Ends the document and flushes the writer
+	 *
+	 * @throws IOException Thrown if the end of the document can't be written
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		try
+		{
+			writer.writeCharacters("\n");
+			writer.writeEndElement();
+			writer.writeEndDocument();
+			writer.flush();
+			writer.close();
+		}
+		catch (XMLStreamException e)
+		{
+			throw new IOException(e);
+		}
+	}
+}
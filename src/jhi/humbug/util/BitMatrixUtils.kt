@@ -0,0 +1,89 @@
+/*
+ *  Copyright 2017 Information and Computational Sciences,
+ *  The James Hutton Institute.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package jhi.humbug.util
+
+import com.google.zxing.common.BitArray
+import com.google.zxing.common.BitMatrix
+import org.eclipse.swt.graphics.ImageData
+import org.eclipse.swt.graphics.PaletteData
+import org.eclipse.swt.graphics.RGB
+
+/**
+ * [BitMatrixUtils] contains methods to convert ZXing [BitMatrix] objects into SWT [ImageData].
+
+ * @author Sebastian Raubach
+ */
+object BitMatrixUtils
+{
+    /** Index 0 is white (unset bits), index 1 is black (set bits) */
+    private val PALETTE = PaletteData(RGB(255, 255, 255), RGB(0, 0, 0))
+
+    /**
+     * Converts the given [BitMatrix] into an [ImageData] with a depth of 1 bit and a black and white palette. The scanlines are filled from the
+     * row bits of the matrix a whole word at a time and identical consecutive rows are copied.
+
+     * @param matrix The [BitMatrix]
+     * *
+     * @return The generated [ImageData]
+     */
+    fun toImageData(matrix: BitMatrix): ImageData
+    {
+        val width = matrix.width
+        val height = matrix.height
+        val data = ImageData(width, height, 1, PALETTE)
+        val bytesPerLine = data.bytesPerLine
+        val bytes = data.data
+
+        var row = BitArray(width)
+        var previous = BitArray(width)
+
+        for (y in 0 until height)
+        {
+            row = matrix.getRow(y, row)
+            val offset = y * bytesPerLine
+
+            if (y > 0 && row == previous)
+            {
+                /* Same as the row above, just copy the scanline */
+                System.arraycopy(bytes, offset - bytesPerLine, bytes, offset, bytesPerLine)
+                continue
+            }
+
+            /* BitArray stores the leftmost pixel in the lowest bit, SWT expects it in the highest bit of the first byte */
+            val words = row.bitArray
+            var index = offset
+            for (word in words)
+            {
+                if (index >= offset + bytesPerLine)
+                    break
+
+                val reversed = Integer.reverse(word)
+                bytes[index++] = (reversed ushr 24).toByte()
+                bytes[index++] = (reversed ushr 16).toByte()
+                bytes[index++] = (reversed ushr 8).toByte()
+                bytes[index++] = reversed.toByte()
+            }
+
+            val swap = previous
+            previous = row
+            row = swap
+        }
+
+        return data
+    }
+}
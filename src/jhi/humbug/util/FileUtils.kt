@@ -39,7 +39,8 @@ object FileUtils
     enum class ImportFileType
     {
         XML,
-        TXT
+        TXT,
+        CSV
     }
 
     fun isImage(name: String): Boolean = ImageFileType.values().any {
@@ -0,0 +1,176 @@
+/*
+ *  Copyright 2017 Information and Computational Sciences,
+ *  The James Hutton Institute.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package jhi.humbug.util
+
+import jhi.humbug.gui.Humbug
+import org.apache.fop.apps.FOUserAgent
+import org.apache.fop.apps.FopFactory
+import org.apache.fop.apps.FopFactoryBuilder
+import org.apache.fop.apps.MimeConstants
+import org.apache.fop.apps.io.ResourceResolverFactory
+import org.apache.fop.area.AreaTreeHandler
+import org.apache.fop.area.IDTracker
+import org.apache.fop.events.EventListener
+import org.apache.fop.fo.FOTreeBuilder
+import org.apache.xmlgraphics.io.Resource
+import org.apache.xmlgraphics.io.ResourceResolver
+import java.io.*
+import java.net.URI
+import java.util.concurrent.ConcurrentHashMap
+import java.util.function.IntConsumer
+import javax.xml.transform.Source
+import javax.xml.transform.Templates
+import javax.xml.transform.TransformerFactory
+import javax.xml.transform.sax.SAXResult
+import javax.xml.transform.stream.StreamSource
+
+/**
+ * [PdfExportEngine] turns barcode items into PDFs. It holds a single [FopFactory] and the compiled [Templates] of the xsl template, so
+ * only the first export pays for setting up FOP and compiling the stylesheet, see [prepare].
+
+ * @author Sebastian Raubach
+ */
+object PdfExportEngine
+{
+    private const val TEMPLATE = "barcode-template2.xsl"
+
+    /** The prefix of the ids the xsl template gives the items, followed by their 1-based position */
+    private const val ITEM_ID = "item-"
+
+    /** The id of the event FOP fires whenever a page has been rendered */
+    private const val END_PAGE = "org.apache.fop.render.RendererEventProducer.endPage"
+
+    /** The image resolvers of the running exports */
+    private val images = ConcurrentHashMap.newKeySet<BarcodeImageResolver>()
+
+    private val fopFactory: FopFactory by lazy {
+        val builder = ResourceResolverFactory.createSchemeAwareResourceResolverBuilder(ResourceResolverFactory.createDefaultResourceResolver())
+        builder.registerResourceResolverForScheme(BarcodeImageResolver.SCHEME, object : ResourceResolver
+        {
+            override fun getResource(uri: URI): Resource = find(uri).getResource(uri)
+
+            override fun getOutputStream(uri: URI): OutputStream = find(uri).getOutputStream(uri)
+        })
+
+        FopFactoryBuilder(File(".").toURI(), builder.build()).build()
+    }
+
+    /** The compiled xsl template. The page layout is passed as parameters, so it never changes. */
+    private val templates: Templates by lazy {
+        val stream = if (Humbug.WITHIN_JAR)
+            PdfExportEngine::class.java.getResourceAsStream("/$TEMPLATE")
+        else
+            FileInputStream(File("res", TEMPLATE))
+
+        stream.use { TransformerFactory.newInstance().newTemplates(StreamSource(it)) }
+    }
+
+    /**
+     * Sets up FOP and compiles the xsl template on a background thread, so the first export doesn't have to
+     */
+    fun prepare()
+    {
+        val thread = Thread {
+            try
+            {
+                fopFactory
+                templates
+            }
+            catch (e: Exception)
+            {
+                /* The export will try again and report the problem */
+                e.printStackTrace()
+            }
+        }
+        thread.isDaemon = true
+        thread.start()
+    }
+
+    /**
+     * Transforms the given items into a PDF
+
+     * @param xml        The barcode items
+     * *
+     * @param resolver   The [BarcodeImageResolver] serving the barcode images referenced by the items
+     * *
+     * @param parameters The page layout
+     * *
+     * @param output     The [OutputStream] to write the PDF to
+     * *
+     * @param rendered   Called on the FOP thread with the number of items rendered since the last call. Can be `null`.
+     */
+    @Throws(Exception::class)
+    fun transform(xml: Source, resolver: BarcodeImageResolver, parameters: TemplateParameters, output: OutputStream, rendered: IntConsumer?)
+    {
+        val transformer = templates.newTransformer()
+        parameters.applyTo(transformer)
+
+        val userAgent = fopFactory.newFOUserAgent()
+        val fop = fopFactory.newFop(MimeConstants.MIME_PDF, userAgent, output)
+        val handler = fop.defaultHandler
+
+        if (rendered != null)
+            addRenderListener(userAgent, ((handler as FOTreeBuilder).eventHandler as AreaTreeHandler).idTracker, rendered)
+
+        images.add(resolver)
+
+        try
+        {
+            transformer.transform(xml, SAXResult(handler))
+        }
+        finally
+        {
+            images.remove(resolver)
+
+            /* The barcode images are never requested again */
+            fopFactory.imageManager.cache.clearCache()
+        }
+    }
+
+    /**
+     * Reports the items on each page once FOP has rendered it. Pages are only laid out after the whole document has been read, the ids of the
+     * items tell which page they ended up on.
+     */
+    private fun addRenderListener(userAgent: FOUserAgent, ids: IDTracker, rendered: IntConsumer)
+    {
+        var items = 0
+
+        userAgent.eventBroadcaster.addEventListener(EventListener { event ->
+            if (event.eventID == END_PAGE)
+            {
+                val pages = event.getParam("number") as Int
+                val before = items
+
+                while (true)
+                {
+                    val page = ids.getLastPageViewportContaining(ITEM_ID + (items + 1))
+
+                    if (page == null || page.pageIndex >= pages)
+                        break
+
+                    items++
+                }
+
+                if (items > before)
+                    rendered.accept(items - before)
+            }
+        })
+    }
+
+    private fun find(uri: URI): BarcodeImageResolver = images.firstOrNull { it.handles(uri) } ?: throw FileNotFoundException(uri.toString())
+}
@@ -333,11 +333,13 @@ public class Resources
 	{
 		/** Color cache */
 		private static final Map<String, Color> COLOR_CACHE = new HashMap<>();
+		public static Color BLACK;
 		public static Color DARK_GREY;
 		public static Color WHITE;
 
 		private static void initialize()
 		{
+			BLACK = loadColor("#000000");
 			DARK_GREY = loadColor("#444444");
 			WHITE = loadColor("#FFFFFF");
 		}
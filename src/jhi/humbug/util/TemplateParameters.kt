@@ -0,0 +1,56 @@
+/*
+ *  Copyright 2017 Information and Computational Sciences,
+ *  The James Hutton Institute.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package jhi.humbug.util
+
+import javax.xml.transform.Transformer
+
+/**
+ * [TemplateParameters] contains the page layout of the PDF export. The values are passed to the `xsl:param`s of the xsl template, sizes are
+ * in millimetres.
+
+ * @author Sebastian Raubach
+ */
+data class TemplateParameters(var cellSpacing: Int = 1, var marginTop: Int = 2, var marginRight: Int = 2, var marginBottom: Int = 2, var marginLeft: Int = 2, var maxImageHeight: Int? = null)
+{
+    fun getCellSpacing(): String = "${cellSpacing}mm"
+
+    fun getMarginTop(): String = "${marginTop}mm"
+
+    fun getMarginRight(): String = "${marginRight}mm"
+
+    fun getMarginBottom(): String = "${marginBottom}mm"
+
+    fun getMarginLeft(): String = "${marginLeft}mm"
+
+    fun getMaxImageHeight(): String = if (maxImageHeight != null) "${maxImageHeight}mm" else "scale-to-fit"
+
+    /**
+     * Sets the parameters of the given [Transformer]
+
+     * @param transformer The [Transformer] of the xsl template
+     */
+    fun applyTo(transformer: Transformer)
+    {
+        transformer.setParameter("margin-top", getMarginTop())
+        transformer.setParameter("margin-right", getMarginRight())
+        transformer.setParameter("margin-bottom", getMarginBottom())
+        transformer.setParameter("margin-left", getMarginLeft())
+        transformer.setParameter("spacing", getCellSpacing())
+        transformer.setParameter("max-image-height", getMaxImageHeight())
+    }
+}
@@ -18,23 +18,22 @@
 package jhi.humbug.util.thread
 
 import com.google.zxing.BarcodeFormat
-import jhi.humbug.gui.Humbug
 import jhi.humbug.gui.i18n.RB
-import jhi.humbug.gui.widget.BarcodeRow
+import jhi.humbug.model.BarcodeDocument
+import jhi.humbug.model.BarcodeEntry
 import org.eclipse.core.runtime.IProgressMonitor
 import org.eclipse.core.runtime.NullProgressMonitor
 import org.eclipse.jface.operation.IRunnableWithProgress
 import org.eclipse.swt.dnd.Clipboard
-import org.eclipse.swt.widgets.Display
 import java.lang.reflect.InvocationTargetException
 
 /**
  * [ClipboardImportThread] implements [IRunnableWithProgress]. It is used to read the content of the system [Clipboard], parse it
- * and add a new [BarcodeRow] for each read line.
+ * and add a new [BarcodeEntry] to the given [BarcodeDocument] for each read line.
 
  * @author Sebastian Raubach
  */
-class ClipboardImportThread(private val clipboard: String, private val format: BarcodeFormat) : IRunnableWithProgress
+class ClipboardImportThread(private val clipboard: String, private val format: BarcodeFormat, private val document: BarcodeDocument) : IRunnableWithProgress
 {
 
     @Throws(InvocationTargetException::class, InterruptedException::class)
@@ -50,27 +49,20 @@ class ClipboardImportThread(private val clipboard: String, private val format: B
         /* Tell the user what you are doing */
         monitor.beginTask(RB.getString(RB.THREAD_IMPORT_TITLE), workload)
 
-        var counter = 0
-
-        for (line in lines)
-        {
-            if (monitor.isCanceled)
+        ImportBatcher.run(document) { batcher ->
+            for (line in lines)
             {
-                monitor.done()
-                break
-            }
+                if (monitor.isCanceled)
+                    break
 
-            monitor.subTask(RB.getString(RB.THREAD_IMPORT_ROW, ++counter))
-
-            Display.getDefault().syncExec {
-                val row = Humbug.getInstance().addRow(false)
-                row.barcode = line
-                row.setBarcodeFormat(format, false)
+                if (batcher.add(BarcodeEntry(line, format)))
+                {
+                    monitor.subTask(RB.getString(RB.THREAD_IMPORT_ROW, batcher.count))
+                    monitor.worked(ImportBatcher.BATCH_SIZE)
+                }
             }
-
-            monitor.worked(1)
         }
 
-        Display.getDefault().syncExec { Humbug.getInstance().update() }
+        monitor.done()
     }
 }
@@ -0,0 +1,81 @@
+/*
+ *  Copyright 2017 Information and Computational Sciences,
+ *  The James Hutton Institute.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package jhi.humbug.util.thread
+
+import jhi.humbug.gui.i18n.RB
+import jhi.humbug.model.BarcodeDocument
+import jhi.humbug.model.BarcodeEntry
+import jhi.humbug.util.BarcodeCsvReader
+import jhi.swtcommons.util.DialogUtils
+import org.eclipse.core.runtime.IProgressMonitor
+import org.eclipse.core.runtime.NullProgressMonitor
+import org.eclipse.jface.operation.IRunnableWithProgress
+import java.io.File
+
+/**
+ * [CsvFileImportThread] implements [IRunnableWithProgress]. It is used to read a given .csv or .tsv [File] and parse each row into a
+ * [BarcodeEntry] of the given [BarcodeDocument]. The rows are streamed using a [BarcodeCsvReader] and the progress is based on the number of
+ * bytes read.
+
+ * @author Sebastian Raubach
+ */
+class CsvFileImportThread(private val file: File, private val document: BarcodeDocument) : IRunnableWithProgress
+{
+    companion object
+    {
+        /** The progress is reported in thousandths of the file size */
+        private const val WORK = 1000
+    }
+
+    override fun run(pMonitor: IProgressMonitor?)
+    {
+        val monitor = pMonitor ?: NullProgressMonitor()
+
+        /* Tell the user what you are doing */
+        monitor.beginTask(RB.getString(RB.THREAD_IMPORT_TITLE), WORK)
+
+        try
+        {
+            BarcodeCsvReader(file, BarcodeEntry.getDefaultFormat()).use { reader ->
+                val size = Math.max(1L, file.length())
+                var reported = 0
+
+                ImportBatcher.run(document) { batcher ->
+                    while (!monitor.isCanceled)
+                    {
+                        val entry = reader.next() ?: break
+
+                        if (batcher.add(entry))
+                        {
+                            val done = (Math.min(reader.position, size) * WORK / size).toInt()
+                            monitor.worked(done - reported)
+                            monitor.subTask(RB.getString(RB.THREAD_IMPORT_ROW, batcher.count))
+                            reported = done
+                        }
+                    }
+                }
+            }
+        }
+        catch (e: Exception)
+        {
+            DialogUtils.handleException(e)
+        }
+
+        monitor.done()
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ *  Copyright 2017 Information and Computational Sciences,
+ *  The James Hutton Institute.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package jhi.humbug.util.thread
+
+import jhi.humbug.gui.Humbug
+import jhi.humbug.gui.i18n.RB
+import jhi.humbug.gui.widget.LayoutScheduler
+import jhi.humbug.model.BarcodeDocument
+import jhi.humbug.model.BarcodeEntry
+import jhi.humbug.render.BarcodeValidator
+import jhi.swtcommons.util.DialogUtils
+import org.eclipse.swt.widgets.Display
+import java.util.*
+
+/**
+ * [ImportBatcher] collects the [BarcodeEntry] objects parsed by an import thread and adds them to the [BarcodeDocument] in batches. Each
+ * batch is a single change of the document, so the list refreshes at most once per batch while the import thread carries on parsing. The
+ * entries are validated on the import thread as well, the number of invalid barcodes is reported at the end.
+ *
+ * Use [run] to suspend the layout of the user interface for the duration of the import.
+
+ * @author Sebastian Raubach
+ */
+class ImportBatcher(private val document: BarcodeDocument, private val batchSize: Int = BATCH_SIZE)
+{
+    /** The number of entries added so far */
+    var count = 0
+        private set
+    /** The number of entries whose barcode isn't valid for their format */
+    var invalid = 0
+        private set
+
+    private var batch = ArrayList<BarcodeEntry>(batchSize)
+
+    /**
+     * Adds the given [BarcodeEntry]. The current batch is handed to the [BarcodeDocument] once it's full.
+
+     * @param entry The [BarcodeEntry]
+     * *
+     * @return `true` if the batch has been handed over
+     */
+    fun add(entry: BarcodeEntry): Boolean
+    {
+        if (!entry.barcode.isNullOrEmpty() && !BarcodeValidator.isValid(entry.barcode, entry.format))
+            invalid++
+
+        batch.add(entry)
+        count++
+
+        if (batch.size >= batchSize)
+        {
+            flush()
+            return true
+        }
+
+        return false
+    }
+
+    /**
+     * Hands the current batch to the [BarcodeDocument]
+     */
+    fun flush()
+    {
+        if (batch.isEmpty())
+            return
+
+        document.addAll(batch)
+        batch = ArrayList(batchSize)
+    }
+
+    companion object
+    {
+        /** The number of entries added to the document at once */
+        const val BATCH_SIZE = 500
+
+        /**
+         * Runs the given import with the layout of the user interface suspended. Afterwards the remaining entries are added, the visible rows
+         * are updated and the number of invalid barcodes is reported.
+
+         * @param document The [BarcodeDocument] to add the entries to
+         * *
+         * @param import   The import, called on the current thread
+         */
+        fun run(document: BarcodeDocument, import: (ImportBatcher) -> Unit)
+        {
+            val batcher = ImportBatcher(document)
+            val display = Display.getDefault()
+
+            display.syncExec { LayoutScheduler.suspend() }
+
+            try
+            {
+                import(batcher)
+            }
+            finally
+            {
+                batcher.flush()
+
+                display.syncExec {
+                    LayoutScheduler.resume()
+                    Humbug.getInstance().update()
+                }
+            }
+
+            if (batcher.invalid > 0)
+                display.asyncExec { DialogUtils.showWarning(RB.getString(RB.WARNING_IMPORT_INVALID, batcher.invalid, batcher.count)) }
+        }
+    }
+}
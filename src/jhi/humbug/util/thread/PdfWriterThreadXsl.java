@@ -17,28 +17,28 @@
 
 package jhi.humbug.util.thread;
 
-import org.apache.commons.io.FileUtils;
-import org.apache.fop.apps.*;
+import com.google.zxing.*;
+
 import org.eclipse.core.runtime.*;
 import org.eclipse.jface.operation.*;
 import org.eclipse.swt.*;
-import org.simpleframework.xml.*;
-import org.simpleframework.xml.core.*;
+import org.xml.sax.*;
 
 import java.io.*;
 import java.lang.reflect.*;
-import java.nio.file.*;
-import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
 
 import javax.imageio.*;
+import javax.imageio.stream.*;
 import javax.xml.transform.*;
 import javax.xml.transform.sax.*;
-import javax.xml.transform.stream.*;
 
 import jhi.humbug.gui.*;
 import jhi.humbug.gui.i18n.*;
-import jhi.humbug.gui.widget.*;
+import jhi.humbug.model.*;
+import jhi.humbug.render.*;
 import jhi.humbug.util.*;
 import jhi.swtcommons.util.*;
 
@@ -47,16 +47,19 @@ import jhi.swtcommons.util.*;
  */
 public class PdfWriterThreadXsl implements IRunnableWithProgress
 {
-	private Collection<BarcodeRow> barcodes;
-	private File                   file;
+	/** PNG encoding is CPU-bound, so use one thread per core */
+	private static final int THREADS = Runtime.getRuntime().availableProcessors();
+
+	private Collection<BarcodeEntry> barcodes;
+	private File                     file;
 
 	/**
-	 * Writes the given {@link Collection} of {@link BarcodeRow}s to the {@link File}
+	 * Writes the given {@link Collection} of {@link BarcodeEntry} objects to the {@link File}
 	 *
-	 * @param barcodes The {@link Collection} of {@link BarcodeRow}s to export
+	 * @param barcodes The {@link Collection} of {@link BarcodeEntry} objects to export
 	 * @param file     The {@link File} to write the barcodes to
 	 */
-	public PdfWriterThreadXsl(Collection<BarcodeRow> barcodes, File file)
+	public PdfWriterThreadXsl(Collection<BarcodeEntry> barcodes, File file)
 	{
 		this.barcodes = barcodes;
 		this.file = file;
@@ -69,8 +72,15 @@ public class PdfWriterThreadXsl implements IRunnableWithProgress
 		if (monitor == null)
 			monitor = new NullProgressMonitor();
 
-        /* Tell the user what you are doing */
-		monitor.beginTask(RB.getString(RB.THREAD_EXPORT_TITLE), IProgressMonitor.UNKNOWN);
+        /* Tell the user what you are doing. The first half is FOP reading the barcodes, the second half is rendering them. */
+		monitor.beginTask(RB.getString(RB.THREAD_EXPORT_TITLE), 2 * barcodes.size());
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS, r ->
+		{
+			Thread thread = new Thread(r, "PdfWriterThreadXsl-encoder");
+			thread.setDaemon(true);
+			return thread;
+		});
 
 		try
 		{
@@ -82,80 +92,73 @@ public class PdfWriterThreadXsl implements IRunnableWithProgress
 			int barcodePadding = Integer.parseInt(HumbugParameterStore.INSTANCE.getAsString(HumbugParameter.barcodePadding));
 			int maxImageHeight = Integer.parseInt(HumbugParameterStore.INSTANCE.getAsString(HumbugParameter.imageHeight));
 
-			TemplateFileWriter.TemplatePlaceholders p = new TemplateFileWriter.TemplatePlaceholders(barcodePadding, marginTop, marginRight, marginBottom, marginLeft, maxImageHeight);
+			TemplateParameters parameters = new TemplateParameters(barcodePadding, marginTop, marginRight, marginBottom, marginLeft, maxImageHeight);
+
+			/* Encode the barcode images on all cores. FOP gets them from the resolver in document order as soon as they are ready. FOP reads
+			 * all of them before it starts the layout, so the progress is based on the images FOP has used so far and then on the items
+			 * on the pages it has rendered. */
+			IProgressMonitor progress = monitor;
+			IntConsumer worked = count ->
+			{
+				/* Abort the transformation, FOP only catches checked exceptions */
+				if (progress.isCanceled())
+					throw new OperationCanceledException();
 
-			/* Write the xsl file to a temporary location */
-			Path directory = Files.createTempDirectory("humbug");
-			File xsl = new File(directory.toFile(), "pdf.xsl");
+				progress.worked(count);
+			};
+			BarcodeImageResolver images = new BarcodeImageResolver(worked);
 
-			System.out.println(directory.toFile().getAbsolutePath());
+			for (BarcodeEntry barcode : barcodes)
+				images.add(executor.submit(() -> encode(barcode)));
 
-			InputStream stream;
-			if (Humbug.WITHIN_JAR)
-				stream = PdfWriterThreadXsl.class.getResourceAsStream("/barcode-template2.xsl");
-			else
-				stream = new FileInputStream(new File("res", "/barcode-template2.xsl"));
+			/* The items are passed to the transformer as SAX events */
+			Source xml = new SAXSource(new BarcodeSaxReader(barcodes, images::getUri), new InputSource());
 
-			try (BufferedReader br = new BufferedReader(new InputStreamReader(stream));
-				 BufferedWriter bw = new BufferedWriter(new FileWriter(xsl)))
+			try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file)))
 			{
-				TemplateFileWriter.INSTANCE.write(br, bw, p);
+				PdfExportEngine.INSTANCE.transform(xml, images, parameters, out, worked);
 			}
 
-			BarcodeCollection collection = new BarcodeCollection();
+			/* The transformer reports a cancelled or failed image instead of throwing, so check both */
+			if (monitor.isCanceled())
+				throw new OperationCanceledException();
+
+			images.checkImages();
+		}
+		catch (Exception e)
+		{
+			file.delete();
 
-			for (BarcodeRow barcode : barcodes)
+			if (!monitor.isCanceled())
 			{
-				Path image = Files.createTempFile(directory, "barcode", ".png");
-				ImageIO.write(barcode.getBufferedImage(), "png", image.toFile());
-				BarcodeCollection.BarcodeItem item = collection.add(barcode);
-				item.setBarcode(image.toFile());
+				e.printStackTrace();
+				DialogUtils.showError(e.getLocalizedMessage());
 			}
 
-			File xml = new File(directory.toFile(), "xml.xml");
-			Serializer serializer = new Persister();
-			serializer.write(collection, xml);
-
-			convertToPDF(xsl, xml, file);
-
-			/* Delete the temporary folder */
-			FileUtils.deleteDirectory(directory.toFile());
+			return;
 		}
-		catch (Exception e)
+		finally
 		{
-			e.printStackTrace();
-			DialogUtils.showError(e.getLocalizedMessage());
+			executor.shutdownNow();
+			monitor.done();
 		}
 
 		DialogUtils.showInformation(RB.getString(RB.INFORMATION_SAVE, file.getAbsolutePath()));
 	}
 
-	private void convertToPDF(File xsltFile, File xmlFile, File pdfFile) throws IOException, FOPException, TransformerException
+	/**
+	 * Renders the given {@link BarcodeEntry} into a PNG
+	 */
+	private static byte[] encode(BarcodeEntry barcode) throws IOException, WriterException
 	{
-		// the XSL FO file
-		// the XML file which provides the input
-		StreamSource xmlSource = new StreamSource(xmlFile);
-		// create an instance of fop factory
-		FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
-		// a user agent is needed for transformation
-		FOUserAgent foUserAgent = fopFactory.newFOUserAgent();
-		// Setup output
-		try (OutputStream out = new FileOutputStream(pdfFile))
-		{
-			// Construct fop with desired output format
-			Fop fop = fopFactory.newFop(MimeConstants.MIME_PDF, foUserAgent, out);
-
-			// Setup XSLT
-			TransformerFactory factory = TransformerFactory.newInstance();
-			Transformer transformer = factory.newTransformer(new StreamSource(xsltFile));
-
-			// Resulting SAX events (the generated FO) must be piped through to FOP
-			javax.xml.transform.Result res = new SAXResult(fop.getDefaultHandler());
+		ByteArrayOutputStream png = new ByteArrayOutputStream();
 
-			// Start XSLT transformation and FOP processing
-			// That's where the XML is first transformed to XSL-FO and then
-			// PDF is created
-			transformer.transform(xmlSource, res);
+		/* Don't let ImageIO cache the stream in a temporary file */
+		try (ImageOutputStream output = new MemoryCacheImageOutputStream(png))
+		{
+			ImageIO.write(BarcodeRenderer.getInstance().toExportImage(barcode.getBarcode(), barcode.getFormat()), "png", output);
 		}
+
+		return png.toByteArray();
 	}
-}
\ No newline at end of file
+}
@@ -17,24 +17,36 @@
 
 package jhi.humbug.util.thread
 
-import jhi.humbug.gui.Humbug
 import jhi.humbug.gui.i18n.RB
-import jhi.humbug.gui.widget.BarcodeRow
+import jhi.humbug.model.BarcodeDocument
+import jhi.humbug.model.BarcodeEntry
 import org.eclipse.core.runtime.IProgressMonitor
 import org.eclipse.core.runtime.NullProgressMonitor
 import org.eclipse.jface.operation.IRunnableWithProgress
-import org.eclipse.swt.widgets.Display
+import java.io.BufferedReader
 import java.io.File
+import java.io.IOException
+import java.io.InputStreamReader
 import java.lang.reflect.InvocationTargetException
+import java.nio.channels.Channels
+import java.nio.channels.FileChannel
+import java.nio.charset.StandardCharsets
+import java.nio.file.StandardOpenOption
 
 /**
  * [TxtFileImportThread] implements [IRunnableWithProgress]. It is used to read a given .txt [File] and parse each line into a
- * [BarcodeRow]
+ * [BarcodeEntry] of the given [BarcodeDocument]. The file is streamed, so only the current batch of lines is held in memory, and the progress
+ * is based on the number of bytes read.
 
  * @author Sebastian Raubach
  */
-class TxtFileImportThread(private val file: File) : IRunnableWithProgress
+class TxtFileImportThread(private val file: File, private val document: BarcodeDocument) : IRunnableWithProgress
 {
+    companion object
+    {
+        /** The progress is reported in thousandths of the file size, so files larger than [Int.MAX_VALUE] bytes work as well */
+        private const val WORK = 1000
+    }
 
     @Throws(InvocationTargetException::class, InterruptedException::class)
     override fun run(pMonitor: IProgressMonitor?)
@@ -42,28 +54,41 @@ class TxtFileImportThread(private val file: File) : IRunnableWithProgress
         val monitor = pMonitor ?: NullProgressMonitor()
 
         /* Tell the user what you are doing */
-        monitor.beginTask(RB.getString(RB.THREAD_IMPORT_TITLE), IProgressMonitor.UNKNOWN)
+        monitor.beginTask(RB.getString(RB.THREAD_IMPORT_TITLE), WORK)
 
-        val lines = file.readLines()
+        val format = BarcodeEntry.getDefaultFormat()
 
-        var counter = 0
-        lines.forEach { s ->
-            run {
-                if (monitor.isCanceled)
-                {
-                    monitor.done()
-                    return@forEach
-                }
+        try
+        {
+            FileChannel.open(file.toPath(), StandardOpenOption.READ).use { channel ->
+                val size = Math.max(1L, channel.size())
+                val reader = BufferedReader(InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8))
+                var reported = 0
 
-                monitor.subTask(RB.getString(RB.THREAD_IMPORT_ROW, ++counter))
+                ImportBatcher.run(document) { batcher ->
+                    while (!monitor.isCanceled)
+                    {
+                        val line = reader.readLine() ?: break
 
-                Display.getDefault().syncExec {
-                    val row = Humbug.getInstance().addRow(false)
-                    row.barcode = s
+                        if (batcher.add(BarcodeEntry(line, format)))
+                        {
+                            /* The channel position includes the read-ahead of the reader, which is close enough */
+                            val done = (Math.min(channel.position(), size) * WORK / size).toInt()
+                            monitor.worked(done - reported)
+                            monitor.subTask(RB.getString(RB.THREAD_IMPORT_ROW, batcher.count))
+                            reported = done
+                        }
+                    }
                 }
             }
         }
-
-        Display.getDefault().syncExec { Humbug.getInstance().update() }
+        catch (e: IOException)
+        {
+            throw InvocationTargetException(e)
+        }
+        finally
+        {
+            monitor.done()
+        }
     }
 }
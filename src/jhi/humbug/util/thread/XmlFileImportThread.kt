@@ -17,65 +17,86 @@
 
 package jhi.humbug.util.thread
 
-import jhi.humbug.gui.Humbug
 import jhi.humbug.gui.i18n.RB
-import jhi.humbug.gui.widget.BarcodeRow
-import jhi.humbug.util.BarcodeCollection
+import jhi.humbug.model.BarcodeDocument
+import jhi.humbug.model.BarcodeEntry
+import jhi.humbug.util.BarcodeXmlReader
 import jhi.swtcommons.util.DialogUtils
 import org.eclipse.core.runtime.IProgressMonitor
 import org.eclipse.core.runtime.NullProgressMonitor
 import org.eclipse.jface.operation.IRunnableWithProgress
-import org.eclipse.swt.widgets.Display
-import org.simpleframework.xml.core.Persister
+import java.io.BufferedInputStream
 import java.io.File
+import java.io.InputStream
+import java.nio.channels.Channels
+import java.nio.channels.FileChannel
+import java.nio.file.StandardOpenOption
+import java.util.zip.GZIPInputStream
 
 /**
- * [XmlFileImportThread] implements [IRunnableWithProgress]. It is used to read a given .xml [File] and parse each item into a
- * [BarcodeRow]
+ * [XmlFileImportThread] implements [IRunnableWithProgress]. It is used to read a given .xml or .xml.gz [File] and parse each item into a
+ * [BarcodeEntry] of the given [BarcodeDocument]. The items are streamed using a [BarcodeXmlReader], so entries are added while the file is
+ * still being read, and the progress is based on the number of bytes read.
 
  * @author Sebastian Raubach
  */
-class XmlFileImportThread(private val file: File) : IRunnableWithProgress
+class XmlFileImportThread(private val file: File, private val document: BarcodeDocument) : IRunnableWithProgress
 {
+    companion object
+    {
+        /** The progress is reported in thousandths of the file size */
+        private const val WORK = 1000
+    }
+
     override fun run(pMonitor: IProgressMonitor?)
     {
         val monitor = pMonitor ?: NullProgressMonitor()
 
         /* Tell the user what you are doing */
-        monitor.beginTask(RB.getString(RB.THREAD_IMPORT_TITLE), IProgressMonitor.UNKNOWN)
-
-        val serializer = Persister()
+        monitor.beginTask(RB.getString(RB.THREAD_IMPORT_TITLE), WORK)
 
         try
         {
-            val coll = serializer.read(BarcodeCollection::class.java, file)
-
-            var counter = 0
-            BarcodeRow.RELAYOUT = false
-            for (item in coll.items)
-            {
-                if (monitor.isCanceled)
-                {
-                    monitor.done()
-                    break
-                }
+            FileChannel.open(file.toPath(), StandardOpenOption.READ).use { channel ->
+                val size = Math.max(1L, channel.size())
+                var reported = 0
 
-                monitor.subTask(RB.getString(RB.THREAD_IMPORT_ROW, ++counter))
+                BarcodeXmlReader(decompress(BufferedInputStream(Channels.newInputStream(channel)))).use { reader ->
+                    ImportBatcher.run(document) { batcher ->
+                        while (!monitor.isCanceled)
+                        {
+                            val entry = reader.next() ?: break
 
-                Display.getDefault().syncExec {
-                    val row = Humbug.getInstance().addRow(false)
-                    row.setBarcodeFormat(item.format, false)
-                    row.barcode = item.name
-                    row.associatedImage = item.getImage()
+                            if (batcher.add(entry))
+                            {
+                                val done = (Math.min(channel.position(), size) * WORK / size).toInt()
+                                monitor.worked(done - reported)
+                                monitor.subTask(RB.getString(RB.THREAD_IMPORT_ROW, batcher.count))
+                                reported = done
+                            }
+                        }
+                    }
                 }
             }
-            BarcodeRow.RELAYOUT = true
         }
         catch (e: Exception)
         {
             DialogUtils.handleException(e)
         }
 
-        Display.getDefault().syncExec { Humbug.getInstance().update() }
+        monitor.done()
+    }
+
+    /**
+     * Wraps the given [BufferedInputStream] in a [GZIPInputStream] if it starts with the gzip magic number. The progress is still based on the
+     * compressed bytes read from the file.
+     */
+    private fun decompress(input: BufferedInputStream): InputStream
+    {
+        input.mark(2)
+        val magic = input.read() or (input.read() shl 8)
+        input.reset()
+
+        return if (magic == GZIPInputStream.GZIP_MAGIC) BufferedInputStream(GZIPInputStream(input)) else input
     }
 }
@@ -18,32 +18,43 @@
 package jhi.humbug.util.thread
 
 import jhi.humbug.gui.i18n.RB
-import jhi.humbug.gui.widget.BarcodeRow
-import jhi.humbug.util.BarcodeCollection
+import jhi.humbug.model.BarcodeEntry
+import jhi.humbug.util.BarcodeXmlWriter
 import jhi.swtcommons.util.DialogUtils
 import org.eclipse.core.runtime.IProgressMonitor
 import org.eclipse.core.runtime.NullProgressMonitor
 import org.eclipse.jface.operation.IRunnableWithProgress
-import org.simpleframework.xml.core.Persister
+import java.io.BufferedOutputStream
 import java.io.File
+import java.io.FileOutputStream
+import java.io.OutputStream
 import java.lang.reflect.InvocationTargetException
+import java.util.zip.GZIPOutputStream
 
 
 /**
- * [XmlWriterThread] implements [IRunnableWithProgress]. It is used to export the [BarcodeRow]s to a File
+ * [XmlWriterThread] implements [IRunnableWithProgress]. It is used to export the [BarcodeEntry]s to a File. The items are streamed using a
+ * [BarcodeXmlWriter], files ending in `.gz` are gzip-compressed.
 
  * @author Sebastian Raubach
  */
 class XmlWriterThread
 /**
- * Writes the given [Collection] of [BarcodeRow]s to the [File]
+ * Writes the given [Collection] of [BarcodeEntry]s to the [File]
 
- * @param barcodes The [Collection] of [BarcodeRow]s to export
+ * @param barcodes The [Collection] of [BarcodeEntry]s to export
  * *
  * @param file     The [File] to write the barcodes to
  */
-(private val barcodes: Collection<BarcodeRow>, private val file: File) : IRunnableWithProgress
+(private val barcodes: Collection<BarcodeEntry>, private val file: File) : IRunnableWithProgress
 {
+    companion object
+    {
+        /** The number of items written between progress updates */
+        private const val PROGRESS_STEP = 500
+        private const val BUFFER_SIZE = 64 * 1024
+    }
+
     @Throws(InvocationTargetException::class, InterruptedException::class)
     override fun run(pMonitor: IProgressMonitor?)
     {
@@ -51,25 +62,53 @@ class XmlWriterThread
         val monitor = pMonitor ?: NullProgressMonitor()
 
         /* Tell the user what you are doing */
-        monitor.beginTask(RB.getString(RB.THREAD_EXPORT_TITLE), IProgressMonitor.UNKNOWN)
-
-        val collection = BarcodeCollection()
+        monitor.beginTask(RB.getString(RB.THREAD_EXPORT_TITLE), barcodes.size)
 
-        for (row in barcodes)
-            collection.add(row)
-
-        val serializer = Persister()
+        var written = 0
 
         try
         {
-            serializer.write(collection, file)
+            open().use { output ->
+                BarcodeXmlWriter(output).use { writer ->
+                    for (entry in barcodes)
+                    {
+                        if (monitor.isCanceled)
+                            break
+
+                        writer.write(entry)
+
+                        if (++written % PROGRESS_STEP == 0)
+                            monitor.worked(PROGRESS_STEP)
+                    }
+                }
+            }
         }
         catch (e: Exception)
         {
             e.printStackTrace()
             DialogUtils.handleException(e)
+            file.delete()
+            return
         }
+        finally
+        {
+            monitor.done()
+        }
+
+        /* Don't leave a partial file behind */
+        if (monitor.isCanceled)
+            file.delete()
+        else
+            DialogUtils.showInformation(RB.getString(RB.INFORMATION_SAVE, file.absolutePath))
+    }
+
+    private fun open(): OutputStream
+    {
+        val output = FileOutputStream(file)
 
-        DialogUtils.showInformation(RB.getString(RB.INFORMATION_SAVE, file.absolutePath))
+        return if (file.name.endsWith(".gz", true))
+            BufferedOutputStream(GZIPOutputStream(output, BUFFER_SIZE), BUFFER_SIZE)
+        else
+            BufferedOutputStream(output, BUFFER_SIZE)
     }
 }